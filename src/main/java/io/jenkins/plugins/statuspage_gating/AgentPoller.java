@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jenkins.plugins.statuspage_gating;
+
+import hudson.model.Computer;
+import hudson.model.Label;
+import hudson.model.Node;
+import hudson.remoting.ChannelClosedException;
+import hudson.remoting.VirtualChannel;
+import io.jenkins.plugins.statuspage_gating.api.Summary;
+import jenkins.model.Jenkins;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Poll page sources on an agent with the configured label, for controllers without access to StatusPage.
+ *
+ * The controller polls itself while no such agent is online, or when the agent disconnects during the poll. Agents
+ * read with a plain HTTP client: hedging, HTTP/2, traffic recording and the concurrency limit configured on controller
+ * are not applied there.
+ */
+/*package*/ final class AgentPoller {
+    private static final Logger LOGGER = Logger.getLogger(AgentPoller.class.getName());
+
+    private AgentPoller() {}
+
+    /**
+     * Read the summary on an agent.
+     *
+     * @return null when there is no agent to read it, so it is read by the controller.
+     */
+    public static @CheckForNull Summary read(
+            @Nonnull String agentLabel, @Nonnull SummaryReader reader, @Nonnull SourceStatistics statistics
+    ) throws IOException, InterruptedException {
+        VirtualChannel channel = findChannel(agentLabel);
+        if (channel == null) {
+            LOGGER.fine(() -> "No agent online with label " + agentLabel + ", polling on controller");
+            return null;
+        }
+
+        long start = System.nanoTime();
+        SummaryReader.Result result;
+        try {
+            result = channel.call(reader);
+        } catch (ChannelClosedException ex) {
+            LOGGER.log(Level.FINE, "Agent disconnected, polling on controller", ex);
+            return null;
+        }
+        statistics.recordAgentPoll(result.getSize(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return result.getSummary();
+    }
+
+    private static @CheckForNull VirtualChannel findChannel(@Nonnull String agentLabel) {
+        Jenkins jenkins = Jenkins.get();
+        Label label = jenkins.getLabel(agentLabel);
+        if (label == null) return null;
+
+        for (Node node : label.getNodes()) {
+            // Polling on the controller is the fallback, not an agent
+            if (node == jenkins) continue;
+
+            Computer computer = node.toComputer();
+            if (computer == null || computer.isOffline()) continue;
+
+            VirtualChannel channel = computer.getChannel();
+            if (channel != null) return channel;
+        }
+        return null;
+    }
+}
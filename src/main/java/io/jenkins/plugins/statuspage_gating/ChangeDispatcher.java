@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jenkins.plugins.statuspage_gating;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Deliver published changes to {@link SnapshotListener}s, through a bounded mailbox per listener.
+ *
+ * Dispatching only enqueues, so it can be done holding the locks of publication. Every mailbox is drained by at most
+ * one task at a time, keeping the order of the changes.
+ */
+/*package*/ final class ChangeDispatcher {
+    private static final Logger LOGGER = Logger.getLogger(ChangeDispatcher.class.getName());
+
+    /*package*/ static final int QUEUE_SIZE = Integer.getInteger(ChangeDispatcher.class.getName() + ".queueSize", 1000);
+
+    private final @Nonnull Supplier<? extends Collection<SnapshotListener>> listeners;
+    private final @Nonnull Executor executor;
+    private final int queueSize;
+    private final Map<SnapshotListener, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    /*package*/ ChangeDispatcher(
+            @Nonnull Supplier<? extends Collection<SnapshotListener>> listeners, @Nonnull Executor executor, int queueSize
+    ) {
+        this.listeners = listeners;
+        this.executor = executor;
+        this.queueSize = queueSize;
+    }
+
+    public void dispatch(@Nonnull List<ResourceChange> changes) {
+        if (changes.isEmpty()) return;
+
+        for (SnapshotListener listener : listeners.get()) {
+            mailboxes.computeIfAbsent(listener, Mailbox::new).offer(changes);
+        }
+    }
+
+    public @Nonnull List<Mailbox> getMailboxes() {
+        return new ArrayList<>(mailboxes.values());
+    }
+
+    /*package*/ final class Mailbox implements Runnable {
+        private final @Nonnull SnapshotListener listener;
+        private final boolean coalescing;
+
+        // Guarded by this
+        private final ArrayDeque<ResourceChange> queue = new ArrayDeque<>();
+        private final Map<String, ResourceChange> latest = new LinkedHashMap<>();
+        private boolean scheduled;
+        private long delivered;
+        private long dropped;
+        private long coalesced;
+
+        private Mailbox(@Nonnull SnapshotListener listener) {
+            this.listener = listener;
+            this.coalescing = listener.isCoalescing();
+        }
+
+        public @Nonnull SnapshotListener getListener() {
+            return listener;
+        }
+
+        private synchronized void offer(List<ResourceChange> changes) {
+            for (ResourceChange change : changes) {
+                if (coalescing) {
+                    ResourceChange pending = latest.get(change.getResource());
+                    if (pending != null) {
+                        latest.put(change.getResource(), pending.merge(change));
+                        coalesced++;
+                    } else if (latest.size() < queueSize) {
+                        latest.put(change.getResource(), change);
+                    } else {
+                        dropped++;
+                    }
+                } else if (queue.size() < queueSize) {
+                    queue.add(change);
+                } else {
+                    dropped++;
+                }
+            }
+
+            if (!scheduled && getDepth() > 0) {
+                scheduled = true;
+                executor.execute(this);
+            }
+        }
+
+        private synchronized @CheckForNull ResourceChange next() {
+            if (!coalescing) return queue.poll();
+
+            Iterator<ResourceChange> it = latest.values().iterator();
+            while (it.hasNext()) {
+                ResourceChange change = it.next();
+                it.remove();
+                if (!change.isNoop()) return change;
+            }
+            return null;
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                ResourceChange change;
+                synchronized (this) {
+                    change = next();
+                    if (change == null) {
+                        scheduled = false;
+                        return;
+                    }
+                }
+
+                try {
+                    listener.onChange(change);
+                } catch (Throwable ex) {
+                    LOGGER.log(Level.WARNING, "Listener " + listener + " failed processing " + change, ex);
+                }
+                synchronized (this) {
+                    delivered++;
+                }
+            }
+        }
+
+        /**
+         * Changes waiting for delivery.
+         */
+        public synchronized int getDepth() {
+            return coalescing ? latest.size() : queue.size();
+        }
+
+        public synchronized long getDelivered() {
+            return delivered;
+        }
+
+        /**
+         * Changes dropped as the mailbox was full.
+         */
+        public synchronized long getDropped() {
+            return dropped;
+        }
+
+        /**
+         * Changes merged into the one waiting for the same resource.
+         */
+        public synchronized long getCoalesced() {
+            return coalesced;
+        }
+    }
+}
@@ -22,13 +22,85 @@
 package io.jenkins.plugins.statuspage_gating;
 
 import com.google.common.annotations.VisibleForTesting;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
 import hudson.util.Secret;
+import io.jenkins.plugins.statuspage_gating.api.ConcurrencyLimiter;
+import io.jenkins.plugins.statuspage_gating.api.HedgingTransport;
+import io.jenkins.plugins.statuspage_gating.api.Http2Transport;
+import io.jenkins.plugins.statuspage_gating.api.HttpClientTransport;
+import io.jenkins.plugins.statuspage_gating.api.LimitingTransport;
+import io.jenkins.plugins.statuspage_gating.api.RecordingTransport;
 import io.jenkins.plugins.statuspage_gating.api.StatusPageIo;
+import io.jenkins.plugins.statuspage_gating.api.TrafficArchive;
+import io.jenkins.plugins.statuspage_gating.api.Transport;
+import org.apache.http.impl.client.HttpClients;
+
+import javax.annotation.CheckForNull;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
 
 /**
  * Create instances of {@link StatusPage}.
+ *
+ * Clients use HTTP/1.1 by default. With HTTP/2 enabled, all the clients share a single JDK 11+ HTTP client, so all
+ * requests to the same host are multiplexed over one connection. Clients fall back to HTTP/1.1 where the runtime does
+ * not support it, and the JDK client itself falls back to HTTP/1.1 for servers not supporting HTTP/2.
+ *
+ * Requests of all the clients share a {@link ConcurrencyLimiter}, unless disabled with <tt>adaptiveConcurrency</tt>.
+ *
+ * With <tt>recordTo</tt> directory set, responses of all the clients are recorded there, to be replayed later by
+ * {@link ReplayClientFactory} set with <tt>replayFrom</tt>.
  */
 public class ClientFactory {
+    private static final Logger LOGGER = Logger.getLogger(ClientFactory.class.getName());
+
+    @VisibleForTesting
+    /*package*/ static boolean HTTP2 = Boolean.getBoolean(ClientFactory.class.getName() + ".http2");
+
+    /**
+     * Maximal number of hedged requests per request.
+     */
+    /*package*/ static final double HEDGE_RATIO = Double.parseDouble(
+            System.getProperty(ClientFactory.class.getName() + ".hedgeRatio", "0.05")
+    );
+
+    /**
+     * Shared by requests of all the clients, null if disabled.
+     */
+    /*package*/ static final @CheckForNull ConcurrencyLimiter LIMITER = createLimiter();
+
+    /**
+     * Directory to record the responses to.
+     */
+    private static final String RECORD_TO = System.getProperty(ClientFactory.class.getName() + ".recordTo");
+
+    /**
+     * Directory to replay the responses from, instead of contacting the pages.
+     */
+    private static final String REPLAY_FROM = System.getProperty(ClientFactory.class.getName() + ".replayFrom");
+
+    /**
+     * How many times faster than recorded the responses are replayed, 0 for no delay.
+     */
+    private static final double REPLAY_SPEEDUP = Double.parseDouble(
+            System.getProperty(ClientFactory.class.getName() + ".replaySpeedup", "1")
+    );
+
+    // Guarded by ClientFactory.class
+    private static ExecutorService hedgingExecutor;
+    private static TrafficArchive recording;
+    private static ClientFactory replay;
+
+    static {
+        if (HTTP2 && !Http2Transport.isSupported()) {
+            LOGGER.warning("HTTP/2 is not supported by " + System.getProperty("java.version") + ", using HTTP/1.1");
+        }
+    }
 
     /**
      * Designed to be replaced by tests.
@@ -37,10 +109,97 @@ public class ClientFactory {
     /*package*/ static ClientFactory factory;
 
     public static ClientFactory get() {
-        return factory != null ? factory : new ClientFactory();
+        if (factory != null) return factory;
+        if (REPLAY_FROM != null) return getReplay();
+        return new ClientFactory();
     }
 
     public StatusPageIo create(String rootUrl, Secret apiKey) {
-        return new StatusPageIo(rootUrl, apiKey);
+        if (isHttp2()) return new StatusPageIo(rootUrl, apiKey, limit(record(Http2Transport.shared())));
+
+        return new StatusPageIo(rootUrl, apiKey, limit(record(new HttpClientTransport(HttpClients.createSystem()))));
+    }
+
+    /**
+     * Create client capable of performing concurrent requests over a shared connection pool.
+     */
+    public StatusPageIo create(String rootUrl, Secret apiKey, int concurrency) {
+        if (concurrency <= 1 || isHttp2()) return create(rootUrl, apiKey);
+
+        return new StatusPageIo(rootUrl, apiKey, limit(record(new HttpClientTransport(StatusPageIo.createPooledClient(concurrency)))));
+    }
+
+    /**
+     * Create client capable of performing concurrent requests, optionally hedging the slow ones.
+     *
+     * @see HedgingTransport
+     */
+    public StatusPageIo create(String rootUrl, Secret apiKey, int concurrency, boolean hedging) {
+        if (!hedging) return create(rootUrl, apiKey, concurrency);
+
+        // Connection for every hedge
+        Transport transport = isHttp2()
+                ? Http2Transport.shared()
+                : new HttpClientTransport(StatusPageIo.createPooledClient(2 * concurrency))
+        ;
+        // Hedges are recorded as well, unless abandoned
+        return new StatusPageIo(rootUrl, apiKey, limit(new HedgingTransport(record(transport), getHedgingExecutor(), HEDGE_RATIO)));
+    }
+
+    /**
+     * Hedges are not limited, so they are not delayed by the requests they hedge.
+     */
+    private static Transport limit(Transport transport) {
+        return LIMITER == null ? transport : new LimitingTransport(transport, LIMITER);
+    }
+
+    private static Transport record(Transport transport) {
+        TrafficArchive archive = getRecording();
+        return archive == null ? transport : new RecordingTransport(transport, archive);
+    }
+
+    private static synchronized TrafficArchive getRecording() {
+        if (RECORD_TO != null && recording == null) {
+            try {
+                recording = new TrafficArchive(new File(RECORD_TO));
+                LOGGER.info("Recording StatusPage responses to " + RECORD_TO);
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Failed opening " + RECORD_TO + " to record the responses", ex);
+            }
+        }
+        return recording;
+    }
+
+    private static synchronized ClientFactory getReplay() {
+        if (replay == null) {
+            try {
+                replay = new ReplayClientFactory(new TrafficArchive(new File(REPLAY_FROM)), REPLAY_SPEEDUP);
+                LOGGER.info("Replaying StatusPage responses from " + REPLAY_FROM);
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Failed reading responses to replay from " + REPLAY_FROM, ex);
+            }
+        }
+        return replay;
+    }
+
+    private static @CheckForNull ConcurrencyLimiter createLimiter() {
+        if (!Boolean.parseBoolean(System.getProperty(ClientFactory.class.getName() + ".adaptiveConcurrency", "true"))) return null;
+
+        // Starting where the fixed parallelism was
+        int initial = PollingExecutor.POOL_SIZE;
+        int max = Math.max(initial, Integer.getInteger(ClientFactory.class.getName() + ".maxConcurrency", 100));
+        return new ConcurrencyLimiter(initial, 1, max);
+    }
+
+    private static synchronized ExecutorService getHedgingExecutor() {
+        if (hedgingExecutor == null) {
+            // Threads are bound by the concurrency of the clients
+            hedgingExecutor = Executors.newCachedThreadPool(new NamingThreadFactory(new DaemonThreadFactory(), "StatusPage request"));
+        }
+        return hedgingExecutor;
+    }
+
+    private static boolean isHttp2() {
+        return HTTP2 && Http2Transport.isSupported();
     }
 }
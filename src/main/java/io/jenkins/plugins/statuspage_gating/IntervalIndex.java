@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jenkins.plugins.statuspage_gating;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable index of time intervals answering overlap queries in logarithmic time.
+ *
+ * Intervals are sorted by their start, with running maximum of their ends. Intervals starting before the end of the
+ * query can be found by binary search, and the running maximum tells if any of them reaches past the query start.
+ *
+ * @param <T> Value associated with the interval.
+ */
+/*package*/ final class IntervalIndex<T> {
+    private static final IntervalIndex<?> EMPTY = new IntervalIndex<>(Collections.emptyList());
+
+    private final long[] starts;
+    private final long[] ends;
+    private final long[] maxEnds;
+    private final Object[] values;
+
+    @SuppressWarnings("unchecked")
+    public static <T> IntervalIndex<T> empty() {
+        return (IntervalIndex<T>) EMPTY;
+    }
+
+    /*package*/ IntervalIndex(@Nonnull List<Interval<T>> intervals) {
+        List<Interval<T>> sorted = new ArrayList<>(intervals);
+        sorted.sort(Comparator.comparingLong(i -> i.start));
+
+        int size = sorted.size();
+        starts = new long[size];
+        ends = new long[size];
+        maxEnds = new long[size];
+        values = new Object[size];
+        long maxEnd = Long.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            Interval<T> interval = sorted.get(i);
+            starts[i] = interval.start;
+            ends[i] = interval.end;
+            values[i] = interval.value;
+            maxEnd = Math.max(maxEnd, interval.end);
+            maxEnds[i] = maxEnd;
+        }
+    }
+
+    public boolean isEmpty() {
+        return starts.length == 0;
+    }
+
+    /**
+     * Is there an interval overlapping [from, to).
+     */
+    public boolean overlaps(long from, long to) {
+        int candidates = startingBefore(to);
+        return candidates > 0 && maxEnds[candidates - 1] > from;
+    }
+
+    /**
+     * Values of all intervals overlapping [from, to), ordered by their start.
+     */
+    @SuppressWarnings("unchecked")
+    public @Nonnull List<T> overlapping(long from, long to) {
+        int candidates = startingBefore(to);
+        List<T> out = new ArrayList<>();
+        // maxEnds is non-decreasing, so no interval further left can reach past from
+        for (int i = candidates - 1; i >= 0 && maxEnds[i] > from; i--) {
+            if (ends[i] > from) {
+                out.add((T) values[i]);
+            }
+        }
+        Collections.reverse(out);
+        return out;
+    }
+
+    /**
+     * Number of intervals starting before given time.
+     */
+    private int startingBefore(long time) {
+        int idx = Arrays.binarySearch(starts, time);
+        if (idx < 0) return -idx - 1;
+        // Find the first of equal starts
+        while (idx > 0 && starts[idx - 1] == time) idx--;
+        return idx;
+    }
+
+    /*package*/ static final class Interval<T> {
+        private final long start;
+        private final long end;
+        private final T value;
+
+        /*package*/ Interval(long start, long end, T value) {
+            if (end < start) throw new IllegalArgumentException("Interval ends before it starts: " + start + " > " + end);
+            this.start = start;
+            this.end = end;
+            this.value = value;
+        }
+    }
+}
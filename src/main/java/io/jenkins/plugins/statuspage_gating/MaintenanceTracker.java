@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jenkins.plugins.statuspage_gating;
+
+import io.jenkins.plugins.statuspage_gating.api.Incident;
+
+import javax.annotation.Nonnull;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Open incidents and scheduled maintenances of a single source, indexed by affected component.
+ *
+ * Updates are incremental: the latest {@link Incident#getUpdatedAt()} seen serves as a cursor, and the index is only
+ * rebuilt when some incident was added, removed, or updated past the cursor.
+ */
+/*package*/ final class MaintenanceTracker {
+    private static final Logger LOGGER = Logger.getLogger(MaintenanceTracker.class.getName());
+
+    /*package*/ static final long REFRESH_PERIOD = TimeUnit.MINUTES.toMillis(
+            Long.getLong(MaintenanceTracker.class.getName() + ".refreshMinutes", 5)
+    );
+
+    private @Nonnull Instant cursor = Instant.MIN;
+    private @Nonnull Set<String> openIds = Collections.emptySet();
+    private long lastRefresh = Long.MIN_VALUE;
+    private volatile @Nonnull Map<String, IntervalIndex<Incident>> byComponent = Collections.emptyMap();
+
+    /**
+     * Management API needs separate requests to get incidents, so do it less often than for components.
+     */
+    public synchronized boolean isRefreshDue(long now) {
+        return lastRefresh == Long.MIN_VALUE || now - lastRefresh >= REFRESH_PERIOD;
+    }
+
+    /**
+     * Replace tracked incidents with currently open ones.
+     *
+     * @return true if the index have changed.
+     */
+    public synchronized boolean update(@Nonnull Collection<Incident> incidents, long now) {
+        lastRefresh = now;
+
+        List<Incident> open = incidents.stream().filter(Incident::isOpen).collect(Collectors.toList());
+        Set<String> ids = open.stream().map(Incident::getId).collect(Collectors.toSet());
+
+        Instant latest = cursor;
+        for (Incident incident : open) {
+            Instant updatedAt = incident.getUpdatedAt();
+            if (updatedAt != null && updatedAt.isAfter(latest)) {
+                latest = updatedAt;
+            }
+        }
+
+        if (ids.equals(openIds) && !latest.isAfter(cursor)) return false;
+
+        cursor = latest;
+        openIds = ids;
+
+        Map<String, List<IntervalIndex.Interval<Incident>>> intervals = new HashMap<>();
+        for (Incident incident : open) {
+            long start = toMillis(incident.getWindowStart());
+            long end = toMillis(incident.getWindowEnd());
+            if (end < start) {
+                // Reported by the page, not worth failing the whole poll for
+                LOGGER.fine(() -> "Ignoring incident " + incident.getId() + " ending before it starts: " + incident.getWindowStart() + " > " + incident.getWindowEnd());
+                continue;
+            }
+
+            IntervalIndex.Interval<Incident> interval = new IntervalIndex.Interval<>(start, end, incident);
+            for (String name : incident.getComponentNames()) {
+                intervals.computeIfAbsent(name, k -> new ArrayList<>()).add(interval);
+            }
+        }
+
+        Map<String, IntervalIndex<Incident>> index = new HashMap<>();
+        intervals.forEach((name, list) -> index.put(name, new IntervalIndex<>(list)));
+        byComponent = index;
+        return true;
+    }
+
+    /**
+     * Windows affecting component of given name.
+     */
+    public @Nonnull IntervalIndex<Incident> windowsOf(@Nonnull String componentName) {
+        return byComponent.getOrDefault(componentName, IntervalIndex.empty());
+    }
+
+    private static long toMillis(Instant instant) {
+        if (instant.equals(Instant.MAX)) return Long.MAX_VALUE;
+        return instant.toEpochMilli();
+    }
+}
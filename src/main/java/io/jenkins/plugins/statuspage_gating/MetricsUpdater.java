@@ -21,20 +21,44 @@
  */
 package io.jenkins.plugins.statuspage_gating;
 
+import com.google.common.annotations.VisibleForTesting;
 import hudson.Extension;
+import hudson.ExtensionList;
 import hudson.Functions;
 import hudson.model.PeriodicWork;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
 import io.jenkins.plugins.gating.GatingMetrics;
 import io.jenkins.plugins.gating.MetricsSnapshot;
+import io.jenkins.plugins.gating.ResourceStatus;
 import io.jenkins.plugins.statuspage_gating.api.Component;
+import io.jenkins.plugins.statuspage_gating.api.FlightRecorderEvents;
+import io.jenkins.plugins.statuspage_gating.api.HedgingTransport;
+import io.jenkins.plugins.statuspage_gating.api.Incident;
 import io.jenkins.plugins.statuspage_gating.api.Page;
 import io.jenkins.plugins.statuspage_gating.api.StatusPageIo;
+import io.jenkins.plugins.statuspage_gating.api.Summary;
+import jenkins.model.Jenkins;
 
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
 import javax.inject.Inject;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -45,10 +69,55 @@ import java.util.logging.Logger;
 public final class MetricsUpdater extends PeriodicWork {
     private static final Logger LOGGER = Logger.getLogger(MetricsUpdater.class.getName());
 
+    /**
+     * How old data of on-demand sources can be served, unless the caller asks otherwise.
+     */
+    /*package*/ static final long ON_DEMAND_MAX_AGE = TimeUnit.SECONDS.toMillis(
+            Long.getLong(MetricsUpdater.class.getName() + ".onDemandMaxAgeSeconds", 60)
+    );
+
     @Inject private StatusPage statusPage;
 
     @Inject private GatingMetrics metrics;
 
+    /**
+     * State of the sources per label.
+     */
+    private final Map<String, SourceState> states = new ConcurrentHashMap<>();
+
+    /**
+     * Changes of the published resources are delivered to listeners asynchronously.
+     */
+    private final ChangeDispatcher dispatcher = new ChangeDispatcher(
+            SnapshotListener::all,
+            Executors.newCachedThreadPool(new NamingThreadFactory(new DaemonThreadFactory(), "StatusPage listener")),
+            ChangeDispatcher.QUEUE_SIZE
+    );
+
+    /**
+     * Results of the sources are published in batches.
+     */
+    private final SnapshotPublisher publisher = new SnapshotPublisher(() -> metrics, dispatcher::dispatch);
+
+    /**
+     * Sources are polled concurrently.
+     */
+    private volatile ExecutorService executor;
+
+    /**
+     * Pages of discovering sources are read concurrently.
+     */
+    private volatile ExecutorService pageExecutor;
+
+    /**
+     * Rolling availability of the resources, loaded on first use.
+     */
+    private volatile UptimeTracker uptime;
+
+    public static MetricsUpdater get() {
+        return ExtensionList.lookupSingleton(MetricsUpdater.class);
+    }
+
     @Override
     public long getRecurrencePeriod() {
         return MIN;
@@ -60,28 +129,510 @@ public final class MetricsUpdater extends PeriodicWork {
     }
 
     @Override
-    protected void doRun() {
+    protected void doRun() throws InterruptedException {
+        reconfigure(statusPage.getSources());
+
+        long now = System.currentTimeMillis();
+        List<StatusPage.Source> sources = PollPriority.order(
+                statusPage.getSources(), PollPriority.countWaiting(statusPage.getLabels()), metrics.getMetrics()
+        );
+        List<Future<Void>> polls = new ArrayList<>();
+        for (StatusPage.Source source : sources) {
+            if (source.isOnDemand()) continue;
+
+            // Joining a refresh in progress rather than polling the source twice
+            polls.add(getState(source).refresh(() -> CompletableFuture.runAsync(() -> poll(source, now), getExecutor())));
+        }
+        try {
+            for (Future<Void> poll : polls) {
+                try {
+                    poll.get();
+                } catch (ExecutionException ex) {
+                    LOGGER.log(Level.WARNING, "Failed polling source", ex.getCause());
+                }
+            }
+        } finally {
+            publisher.flush();
+            getUptime().save();
+        }
+    }
+
+    /**
+     * Apply changed source configuration.
+     *
+     * State of unchanged sources is kept, changed sources start afresh, and metrics of removed sources are evicted.
+     */
+    /*package*/ void reconfigure(@Nonnull List<StatusPage.Source> sources) {
+        Map<String, StatusPage.Source> configured = new HashMap<>();
+        for (StatusPage.Source source : sources) {
+            configured.put(source.getLabel(), source);
+        }
+
+        boolean evicted = false;
+        for (Map.Entry<String, SourceState> entry : states.entrySet()) {
+            String label = entry.getKey();
+            SourceState state = entry.getValue();
+            StatusPage.Source source = configured.get(label);
+            if (source != null && source.equals(state.getSource())) continue;
+
+            // Holding the lock, so polls in progress can not publish the result after eviction
+            synchronized (publisher) {
+                if (source == null) {
+                    if (!states.remove(label, state)) continue;
+
+                    LOGGER.fine("Source " + label + " removed, evicting its metrics");
+                    publisher.update(new MetricsSnapshot(statusPage, label, Collections.emptyMap()));
+                    getUptime().remove(label);
+                    evicted = true;
+                } else {
+                    if (!states.replace(label, state, new SourceState(source, state))) continue;
+
+                    LOGGER.fine("Source " + label + " reconfigured");
+                }
+            }
+            state.retire();
+        }
+
+        if (evicted) {
+            publisher.flush();
+        }
+    }
+
+    /**
+     * Refresh sources with some resource down in between the regular polls, as their recovery unblocks builds.
+     */
+    /*package*/ void pollDown() {
+        Map<String, MetricsSnapshot> snapshots = metrics.getMetrics();
+        List<StatusPage.Source> down = new ArrayList<>();
         for (StatusPage.Source source : statusPage.getSources()) {
-            Map<String, MetricsSnapshot.Resource> statuses = new HashMap<>();
-            try (StatusPageIo spi = ClientFactory.get().create(source.getUrl(), source.getApiKey())) {
-                for (Page page : spi.listPages()) {
-                    // Only read the page configured
-                    if (!Objects.equals(page.getName(), source.getPage())) continue;
-
-                    List<Component> components = spi.listComponents(page);
-
-                    for (Component component : components) {
-                        String resourceId = String.format("%s/%s", source.getLabel(), component.getName());
-                        statuses.put(resourceId, new MetricsSnapshot.Resource(
-                                resourceId, component.getStatus(), component.getDescription()
-                        ));
-                    }
+            if (!source.isOnDemand() && PollPriority.isDown(snapshots.get(source.getLabel()))) {
+                down.add(source);
+            }
+        }
+        if (down.isEmpty()) return;
+
+        for (StatusPage.Source source : PollPriority.order(down, PollPriority.countWaiting(statusPage.getLabels()), snapshots)) {
+            getState(source).refresh(() -> CompletableFuture.runAsync(
+                    () -> poll(source, System.currentTimeMillis()), getExecutor()
+            ));
+        }
+    }
+
+    /**
+     * Refresh on-demand sources with resources blocked queue items wait for, as nothing else asks for them.
+     */
+    /*package*/ void demandWaiting() {
+        List<String> onDemand = new ArrayList<>();
+        for (StatusPage.Source source : statusPage.getSources()) {
+            if (source.isOnDemand()) {
+                onDemand.add(source.getLabel());
+            }
+        }
+        if (onDemand.isEmpty()) return;
+
+        for (String label : PollPriority.countWaiting(onDemand).keySet()) {
+            demand(label);
+        }
+    }
+
+    /**
+     * Refresh the on-demand source of the resource, unless updated in the last {@link #ON_DEMAND_MAX_AGE}.
+     *
+     * @see #demand(String, long)
+     */
+    public @Nonnull Future<?> demand(@Nonnull String resource) {
+        return demand(resource, ON_DEMAND_MAX_AGE);
+    }
+
+    /**
+     * Refresh the on-demand source of the resource, unless updated in the last max-age milliseconds.
+     *
+     * Concurrent demands of the same source share a single refresh. Sources polled in the background are never
+     * refreshed this way.
+     *
+     * @param resource Resource id, or source label.
+     * @return Future completed once the source is refreshed, completed right away when no refresh is needed.
+     */
+    public @Nonnull Future<?> demand(@Nonnull String resource, long maxAge) {
+        StatusPage.Source source = findSource(resource);
+        if (source == null || !source.isOnDemand()) return CompletableFuture.completedFuture(null);
+
+        return refresh(source, maxAge);
+    }
+
+    /**
+     * Refresh the source of the resource, unless updated in the last max-age milliseconds.
+     *
+     * Unlike {@link #demand(String, long)}, sources polled in the background are refreshed too. Concurrent refreshes
+     * of the same source share a single poll.
+     *
+     * @param resource Resource id, or source label.
+     * @return Future completed once the source is refreshed, completed right away when no refresh is needed.
+     */
+    public @Nonnull Future<?> refresh(@Nonnull String resource, long maxAge) {
+        StatusPage.Source source = findSource(resource);
+        if (source == null) return CompletableFuture.completedFuture(null);
+
+        return refresh(source, maxAge);
+    }
+
+    /**
+     * Latest published status of the resource.
+     *
+     * Looked up by the source label and resource id, without scanning other sources or resources.
+     *
+     * @return null if not reported.
+     */
+    public @CheckForNull MetricsSnapshot.Resource getResource(@Nonnull String resource) {
+        // Labels can contain slashes, try every prefix
+        for (int i = resource.indexOf('/'); i > 0; i = resource.indexOf('/', i + 1)) {
+            MetricsSnapshot.Resource r = publisher.getPublished(resource.substring(0, i), resource);
+            if (r != null) return r;
+        }
+        return null;
+    }
+
+    private @CheckForNull StatusPage.Source findSource(@Nonnull String resource) {
+        for (StatusPage.Source s : statusPage.getSources()) {
+            if (resource.equals(s.getLabel()) || resource.startsWith(s.getLabel() + "/")) return s;
+        }
+        return null;
+    }
+
+    private @Nonnull Future<?> refresh(@Nonnull StatusPage.Source source, long maxAge) {
+        SourceState state = getState(source);
+        long age = state.getStatistics().getAge(System.currentTimeMillis());
+        if (age >= 0 && age <= maxAge) return CompletableFuture.completedFuture(null);
+
+        return state.refresh(() -> CompletableFuture.runAsync(() -> {
+            poll(source, System.currentTimeMillis());
+            // Do not make the caller wait for the batch window
+            publisher.flush();
+        }, getExecutor()));
+    }
+
+    private void poll(StatusPage.Source source, long now) {
+        SourceState state = getState(source);
+        long start = System.nanoTime();
+        FlightRecorderEvents.Event event = FlightRecorderEvents.SOURCE_POLL.begin();
+        int resources = 0;
+        boolean failed = true;
+        StatusPageIo spi = state.acquire();
+        try {
+            Map<String, MetricsSnapshot.Resource> statuses = state.getDiscovery() != null
+                    ? readDiscovered(spi, state, now)
+                    : readSource(spi, state, now)
+            ;
+            resources = statuses.size();
+            failed = false;
+            // Staleness is checked holding the same lock, so it can not overwrite this result
+            synchronized (publisher) {
+                if (state.isRetired()) return;
+
+                publisher.update(new MetricsSnapshot(statusPage, source.getLabel(), statuses));
+                getUptime().record(statuses, System.currentTimeMillis());
+                state.getStatistics().recordSuccess(System.currentTimeMillis());
+                state.getStatistics().recordPoll(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), false);
+            }
+        } catch (Throwable ex) {
+            LOGGER.log(Level.WARNING, "Failed obtaining metrics from source " + source, ex);
+            synchronized (publisher) {
+                if (state.isRetired()) return;
+
+                publisher.reportError(source.getLabel(), new MetricsSnapshot.Error(statusPage, source.getLabel(), "Failed obtaining metrics from source", ex));
+                state.getStatistics().recordPoll(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), true);
+            }
+        } finally {
+            state.release();
+            if (event != null) {
+                event.commit(source.getLabel(), source.getMode().name(), resources, failed);
+            }
+        }
+    }
+
+    /**
+     * Milliseconds since the source was last updated successfully.
+     *
+     * @return -1 if not updated yet.
+     */
+    public long getStalenessAge(@Nonnull String label) {
+        SourceState state = states.get(label);
+        return state == null ? -1 : state.getStatistics().getAge(System.currentTimeMillis());
+    }
+
+    /**
+     * Poll statistics of the source.
+     *
+     * @return null if not polled since configured.
+     */
+    /*package*/ @CheckForNull SourceStatistics getStatistics(@Nonnull String label) {
+        SourceState state = states.get(label);
+        return state == null ? null : state.getStatistics();
+    }
+
+    /**
+     * Hedged requests of the source.
+     *
+     * @return null if the source does not hedge, or was not polled since configured.
+     */
+    /*package*/ @CheckForNull HedgingTransport getHedging(@Nonnull String label) {
+        SourceState state = states.get(label);
+        return state == null ? null : state.getHedging();
+    }
+
+    /**
+     * Share of the window the resource was up, from 0 to 1.
+     *
+     * @return -1 if the resource was not observed during the window.
+     */
+    public double getAvailability(@Nonnull String resource, @Nonnull UptimeTracker.Window window) {
+        return getUptime().getAvailability(resource, window, System.currentTimeMillis());
+    }
+
+    /*package*/ @Nonnull UptimeTracker getUptime() {
+        UptimeTracker u = uptime;
+        if (u == null) {
+            synchronized (this) {
+                if (uptime == null) {
+                    uptime = UptimeTracker.load(new File(Jenkins.get().getRootDir(), UptimeTracker.class.getName() + ".bin"));
+                }
+                u = uptime;
+            }
+        }
+        return u;
+    }
+
+    /*package*/ @Nonnull ChangeDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * Changes whenever the published metrics or statistics change.
+     */
+    public long getPublishedVersion() {
+        return publisher.getVersion();
+    }
+
+    /**
+     * Report all resources of sources not updated for longer than max-age as {@link Component.Status#UNKNOWN}.
+     *
+     * Fresh snapshot replaces the degraded one once the source is updated successfully.
+     */
+    /*package*/ void degradeStale(long now) {
+        long maxAge = TimeUnit.MINUTES.toMillis(statusPage.getMaxAge());
+        if (maxAge == 0) return;
+
+        for (Map.Entry<String, SourceState> entry : states.entrySet()) {
+            String label = entry.getKey();
+            SourceStatistics stats = entry.getValue().getStatistics();
+            // Expected to age between demands
+            if (entry.getValue().getSource().isOnDemand()) continue;
+
+            synchronized (publisher) {
+                if (entry.getValue().isRetired() || !stats.markStale(now, maxAge)) continue;
+
+                MetricsSnapshot last = metrics.getMetrics().get(label);
+                if (last == null) continue;
+
+                long minutes = TimeUnit.MILLISECONDS.toMinutes(stats.getStaleness(now));
+                LOGGER.warning("Source " + label + " not updated for " + minutes + " minutes, reporting its resources as unknown");
+
+                String description = "Not updated for " + minutes + " minutes";
+                Map<String, MetricsSnapshot.Resource> statuses = new HashMap<>();
+                for (String resourceId : last.getStatuses().keySet()) {
+                    statuses.put(resourceId, new MetricsSnapshot.Resource(resourceId, Component.Status.UNKNOWN, description));
+                }
+                publisher.update(new MetricsSnapshot(statusPage, label, statuses));
+            }
+        }
+        publisher.flush();
+    }
+
+    /**
+     * State of the source, created afresh when the source configuration have changed.
+     */
+    private @Nonnull SourceState getState(@Nonnull StatusPage.Source source) {
+        SourceState created = null;
+        SourceState replaced = null;
+        synchronized (states) {
+            SourceState state = states.get(source.getLabel());
+            if (state != null && state.getSource().equals(source)) return state;
+
+            created = new SourceState(source, state);
+            states.put(source.getLabel(), created);
+            replaced = state;
+        }
+        if (replaced != null) {
+            replaced.retire();
+        }
+        return created;
+    }
+
+    private @Nonnull ExecutorService getExecutor() {
+        ExecutorService e = executor;
+        if (e == null) {
+            synchronized (this) {
+                if (executor == null) {
+                    executor = PollingExecutor.create(PollingExecutor.STRATEGY, PollingExecutor.POOL_SIZE);
+                }
+                e = executor;
+            }
+        }
+        return e;
+    }
+
+    /**
+     * Poll sources on provided executor, owned by the caller.
+     *
+     * @param executor null to create the default one on next use.
+     */
+    @VisibleForTesting
+    /*package*/ synchronized void setExecutor(@CheckForNull ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    private @Nonnull ExecutorService getPageExecutor() {
+        ExecutorService e = pageExecutor;
+        if (e == null) {
+            synchronized (this) {
+                if (pageExecutor == null) {
+                    pageExecutor = PollingExecutor.create(PollingExecutor.STRATEGY, PollingExecutor.POOL_SIZE);
+                }
+                e = pageExecutor;
+            }
+        }
+        return e;
+    }
+
+    private @Nonnull Map<String, MetricsSnapshot.Resource> readSource(
+            StatusPageIo spi, SourceState state, long now
+    ) throws IOException, InterruptedException {
+        StatusPage.Source source = state.getSource();
+        MaintenanceTracker tracker = state.getMaintenances();
+        RollupGraph rollup = state.getRollup();
+        boolean readIncidents = tracker != null && tracker.isRefreshDue(now);
+        String agentLabel = statusPage.getAgentLabel();
+        Page page = state.getPage();
+        Summary summary;
+        try {
+            summary = agentLabel == null
+                    ? null
+                    : AgentPoller.read(agentLabel, new SummaryReader(source, page, readIncidents, rollup != null), state.getStatistics())
+            ;
+            if (summary == null) {
+                summary = SummaryReader.read(spi, source.getMode(), source.getPage(), page, source.getFilter(), readIncidents, rollup != null);
+            }
+        } catch (IOException ex) {
+            // The page might have been removed, look it up again
+            state.setPage(null);
+            throw ex;
+        }
+        if (source.getMode() == StatusPage.Source.Mode.MANAGEMENT && summary.getPage().getId() != null) {
+            state.setPage(summary.getPage());
+        }
+        if (tracker != null && summary.getIncidents() != null) {
+            tracker.update(summary.getIncidents(), now);
+        }
+
+        Map<String, MetricsSnapshot.Resource> statuses = new HashMap<>();
+        for (Component component : summary.getComponents()) {
+            String resourceId = String.format("%s/%s", source.getLabel(), component.getName());
+            statuses.put(resourceId, toResource(resourceId, component, source, tracker, now));
+        }
+
+        if (rollup != null) {
+            rollup.update(summary.getComponents(), summary.getGroups()).forEach((parent, status) -> {
+                String resourceId = String.format("%s/%s", source.getLabel(), parent);
+                // Actual component takes precedence
+                statuses.putIfAbsent(resourceId, new MetricsSnapshot.Resource(resourceId, status, "Rolled up status"));
+            });
+        }
+        return statuses;
+    }
+
+    /**
+     * Read components of all discovered pages concurrently, prefixing the resources with page name.
+     */
+    private @Nonnull Map<String, MetricsSnapshot.Resource> readDiscovered(
+            StatusPageIo spi, SourceState state, long now
+    ) throws IOException, InterruptedException {
+        StatusPage.Source source = state.getSource();
+        List<Page> pages = state.getDiscovery().getPages(spi, source.getPagePattern(), now);
+
+        List<Callable<List<Component>>> reads = new ArrayList<>();
+        for (Page page : pages) {
+            reads.add(() -> spi.listComponents(page, source.getFilter()));
+        }
+        // Pages are read on a separate executor, so source polls waiting for them can not starve it
+        List<Future<List<Component>>> results = getPageExecutor().invokeAll(reads);
+
+        Map<String, MetricsSnapshot.Resource> statuses = new HashMap<>();
+        for (int i = 0; i < pages.size(); i++) {
+            Page page = pages.get(i);
+            List<Component> components;
+            try {
+                components = results.get(i).get();
+            } catch (ExecutionException ex) {
+                throw new IOException("Failed reading page " + page.getName(), ex.getCause());
+            }
+
+            for (Component component : components) {
+                String resourceId = String.format("%s/%s/%s", source.getLabel(), page.getName(), component.getName());
+                statuses.put(resourceId, new MetricsSnapshot.Resource(
+                        resourceId, component.getStatus(), component.getDescription()
+                ));
+            }
+        }
+        return statuses;
+    }
+
+    /**
+     * Open incidents and scheduled maintenances affecting the resource in the time range [from, to).
+     *
+     * Only tracked for sources with maintenance lookahead configured.
+     */
+    public @Nonnull List<Incident> getIncidents(@Nonnull String resource, long from, long to) {
+        for (Map.Entry<String, SourceState> entry : states.entrySet()) {
+            String prefix = entry.getKey() + "/";
+            MaintenanceTracker tracker = entry.getValue().getMaintenances();
+            if (tracker != null && resource.startsWith(prefix)) {
+                return tracker.windowsOf(resource.substring(prefix.length())).overlapping(from, to);
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Is there a maintenance of the resource scheduled in the time range [from, to).
+     *
+     * Useful to determine if build of known expected duration would cross the maintenance window.
+     */
+    public boolean isMaintenanceScheduled(@Nonnull String resource, long from, long to) {
+        return getIncidents(resource, from, to).stream().anyMatch(Incident::isMaintenance);
+    }
+
+    private static @Nonnull MetricsSnapshot.Resource toResource(
+            String resourceId, Component component, StatusPage.Source source, @CheckForNull MaintenanceTracker tracker, long now
+    ) {
+        Component.Status status = component.getStatus();
+        String description = component.getDescription();
+        if (tracker != null) {
+            Optional<Incident> maintenance = tracker.windowsOf(component.getName()).overlapping(now, Long.MAX_VALUE).stream()
+                    .filter(Incident::isMaintenance)
+                    .findFirst()
+            ;
+            if (maintenance.isPresent()) {
+                Incident window = maintenance.get();
+                long lookahead = TimeUnit.MINUTES.toMillis(source.getMaintenanceLookahead());
+                if (status.getCategory() == ResourceStatus.Category.UP && window.getWindowStart().toEpochMilli() < now + lookahead) {
+                    status = Component.Status.UNDER_MAINTENANCE;
                 }
-                metrics.update(new MetricsSnapshot(statusPage, source.getLabel(), statuses));
-            } catch (Throwable ex) {
-                LOGGER.log(Level.WARNING, "Failed obtaining metrics from source " + source, ex);
-                metrics.reportError(new MetricsSnapshot.Error(statusPage, source.getLabel(), "Failed obtaining metrics from source", ex));
+
+                String end = window.getScheduledUntil() == null ? "" : window.getScheduledUntil().toString();
+                String note = String.format("Scheduled maintenance '%s' %s/%s", window.getName(), window.getWindowStart(), end);
+                description = description == null || description.isEmpty() ? note : description + " (" + note + ")";
             }
         }
+        return new MetricsSnapshot.Resource(resourceId, status, description);
     }
 }
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jenkins.plugins.statuspage_gating;
+
+import io.jenkins.plugins.statuspage_gating.api.ComponentFilter;
+import io.jenkins.plugins.statuspage_gating.api.Page;
+import io.jenkins.plugins.statuspage_gating.api.StatusPageIo;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Pages discovered for a single source, refreshed periodically.
+ */
+/*package*/ final class PageDiscovery {
+    /*package*/ static final long REFRESH_PERIOD = TimeUnit.MINUTES.toMillis(
+            Long.getLong(PageDiscovery.class.getName() + ".refreshMinutes", 10)
+    );
+
+    private List<Page> pages;
+    private long discoveredAt;
+
+    /**
+     * Pages matching the pattern, listing them again once the refresh period is over.
+     */
+    public synchronized @Nonnull List<Page> getPages(
+            @Nonnull StatusPageIo spi, @Nonnull ComponentFilter pattern, long now
+    ) throws IOException {
+        if (pages == null || now - discoveredAt >= REFRESH_PERIOD) {
+            pages = Collections.unmodifiableList(spi.listPages().stream()
+                    .filter(p -> pattern.accepts(p.getId(), p.getName(), null, null))
+                    .collect(Collectors.toList())
+            );
+            discoveredAt = now;
+        }
+        return pages;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jenkins.plugins.statuspage_gating;
+
+import hudson.model.Queue;
+import hudson.model.queue.CauseOfBlockage;
+import io.jenkins.plugins.gating.MetricsSnapshot;
+import io.jenkins.plugins.gating.ResourceStatus;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Order in which the sources are polled, so the ones blocking builds are refreshed first.
+ *
+ * Demand of a source is the number of blocked queue items whose cause of blockage names some of the source
+ * resources, <tt>label/...</tt> following a whitespace, quote or bracket. Sources with higher demand come first, sources with some resource down come before
+ * the rest, configuration order is kept otherwise.
+ */
+/*package*/ final class PollPriority {
+
+    private PollPriority() {}
+
+    /**
+     * Number of blocked queue items referring to resources of the source, per source label.
+     */
+    public static @Nonnull Map<String, Integer> countWaiting(@Nonnull Collection<String> labels) {
+        Map<String, Integer> waiting = new HashMap<>();
+        if (labels.isEmpty()) return waiting;
+
+        // Snapshot of the queue, not holding the lock
+        for (Queue.Item item : Queue.getInstance().getItems()) {
+            CauseOfBlockage cause = item.getCauseOfBlockage();
+            if (cause == null) continue;
+
+            String description = cause.getShortDescription();
+            if (description == null) continue;
+
+            for (String label : labels) {
+                if (refersTo(description, label)) {
+                    waiting.merge(label, 1, Integer::sum);
+                }
+            }
+        }
+        return waiting;
+    }
+
+    /**
+     * Does the text name some resource of the source, not just a resource of a source whose label ends the same.
+     */
+    /*package*/ static boolean refersTo(@Nonnull String description, @Nonnull String label) {
+        String prefix = label + "/";
+        for (int i = description.indexOf(prefix); i >= 0; i = description.indexOf(prefix, i + 1)) {
+            if (i == 0 || isSeparator(description.charAt(i - 1))) return true;
+        }
+        return false;
+    }
+
+    private static boolean isSeparator(char c) {
+        return Character.isWhitespace(c) || "'\"`([{<,;:".indexOf(c) >= 0;
+    }
+
+    /**
+     * Is some of the snapshot resources down.
+     */
+    public static boolean isDown(@CheckForNull MetricsSnapshot snapshot) {
+        if (snapshot == null) return false;
+
+        for (MetricsSnapshot.Resource resource : snapshot.getStatuses().values()) {
+            if (resource.getStatus().getCategory() == ResourceStatus.Category.DOWN) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Sources sorted by priority, the list is not modified.
+     */
+    public static @Nonnull List<StatusPage.Source> order(
+            @Nonnull List<StatusPage.Source> sources, @Nonnull Map<String, Integer> waiting, @Nonnull Map<String, MetricsSnapshot> snapshots
+    ) {
+        List<StatusPage.Source> ordered = new ArrayList<>(sources);
+        // Stable, so configuration order is kept for sources of the same priority
+        ordered.sort(Comparator
+                .comparing((StatusPage.Source s) -> waiting.getOrDefault(s.getLabel(), 0)).reversed()
+                .thenComparing(s -> !isDown(snapshots.get(s.getLabel())))
+        );
+        return ordered;
+    }
+}
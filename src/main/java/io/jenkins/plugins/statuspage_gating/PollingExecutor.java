@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jenkins.plugins.statuspage_gating;
+
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Create executors to poll the sources on.
+ *
+ * Sources spend most of the time waiting for I/O, so a virtual thread per source is used where the runtime supports
+ * it (JDK 21+). Otherwise, the sources are polled on a bounded pool of platform threads. As the plugin is compiled
+ * against Java 8, virtual threads are looked up reflectively.
+ */
+/*package*/ final class PollingExecutor {
+    private static final Logger LOGGER = Logger.getLogger(PollingExecutor.class.getName());
+
+    /*package*/ static final Strategy STRATEGY = Strategy.forValue(
+            System.getProperty(PollingExecutor.class.getName() + ".strategy")
+    );
+    /*package*/ static final int POOL_SIZE = Integer.getInteger(PollingExecutor.class.getName() + ".poolSize", 10);
+
+    private static final @CheckForNull Method NEW_VIRTUAL_THREAD_EXECUTOR = lookupVirtualThreadExecutor();
+
+    private PollingExecutor() {}
+
+    public enum Strategy {
+        /**
+         * Virtual threads when supported, platform thread pool otherwise.
+         */
+        AUTO,
+        /**
+         * Virtual threads, failing over to platform thread pool when not supported.
+         */
+        VIRTUAL,
+        /**
+         * Bounded pool of platform threads.
+         */
+        PLATFORM;
+
+        private static @Nonnull Strategy forValue(@CheckForNull String value) {
+            if (value == null || value.isEmpty()) return AUTO;
+            try {
+                return valueOf(value.toUpperCase(Locale.ENGLISH));
+            } catch (IllegalArgumentException ex) {
+                LOGGER.warning("Unknown polling strategy '" + value + "', using " + AUTO);
+                return AUTO;
+            }
+        }
+    }
+
+    public static boolean isVirtualThreadSupported() {
+        return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+    }
+
+    /**
+     * @param poolSize Maximal number of platform threads, when used.
+     */
+    public static @Nonnull ExecutorService create(@Nonnull Strategy strategy, int poolSize) {
+        if (strategy != Strategy.PLATFORM && NEW_VIRTUAL_THREAD_EXECUTOR != null) {
+            try {
+                return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null);
+            } catch (IllegalAccessException | InvocationTargetException ex) {
+                LOGGER.log(Level.WARNING, "Failed creating virtual thread executor, using platform threads", ex);
+            }
+        } else if (strategy == Strategy.VIRTUAL) {
+            LOGGER.warning("Virtual threads are not supported by " + System.getProperty("java.version") + ", using platform threads");
+        }
+
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                poolSize, poolSize, 1, TimeUnit.MINUTES, new LinkedBlockingQueue<>(),
+                new NamingThreadFactory(new DaemonThreadFactory(), "StatusPage poller")
+        );
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static @CheckForNull Method lookupVirtualThreadExecutor() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException ex) {
+            return null;
+        }
+    }
+}
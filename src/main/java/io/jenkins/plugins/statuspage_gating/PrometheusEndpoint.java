@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jenkins.plugins.statuspage_gating;
+
+import com.google.common.annotations.VisibleForTesting;
+import hudson.Extension;
+import hudson.model.RootAction;
+import io.jenkins.plugins.gating.GatingMetrics;
+import io.jenkins.plugins.gating.MetricsSnapshot;
+import io.jenkins.plugins.gating.ResourceStatus;
+import io.jenkins.plugins.statuspage_gating.api.ConcurrencyLimiter;
+import io.jenkins.plugins.statuspage_gating.api.HedgingTransport;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.StaplerResponse;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Resource statuses and poll statistics in Prometheus text exposition format, at <tt>JENKINS_URL/statuspage-gating/prometheus</tt>.
+ *
+ * The text is rendered once per published change and served as is until the next one, so scrapes cost no rendering.
+ * Only the statistics of the concurrency limit and listeners, changing in between, are rendered on every scrape.
+ * Snapshot age is exposed as the timestamp of the last successful poll, so it does not change between polls.
+ */
+@Extension
+public final class PrometheusEndpoint implements RootAction {
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    @Inject private MetricsUpdater updater;
+
+    @Inject private StatusPage statusPage;
+
+    @Inject private GatingMetrics metrics;
+
+    // Guarded by this
+    private long renderedVersion = -1;
+    private byte[] rendered;
+
+    @Override
+    public @CheckForNull String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public @Nonnull String getDisplayName() {
+        return "StatusPage gating metrics";
+    }
+
+    @Override
+    public @Nonnull String getUrlName() {
+        return "statuspage-gating";
+    }
+
+    public void doPrometheus(StaplerResponse rsp) throws IOException {
+        Jenkins.get().checkPermission(Jenkins.READ);
+
+        byte[] body = getText();
+        byte[] live = renderLive().getBytes(StandardCharsets.UTF_8);
+        rsp.setContentType(CONTENT_TYPE);
+        rsp.setContentLength(body.length + live.length);
+        try (OutputStream out = rsp.getOutputStream()) {
+            out.write(body);
+            out.write(live);
+        }
+    }
+
+    @VisibleForTesting
+    /*package*/ synchronized @Nonnull byte[] getText() {
+        // Read before rendering, so a change published meanwhile is rendered by the next scrape
+        long version = updater.getPublishedVersion();
+        if (rendered == null || version != renderedVersion) {
+            rendered = render().getBytes(StandardCharsets.UTF_8);
+            renderedVersion = version;
+        }
+        return rendered;
+    }
+
+    private @Nonnull String render() {
+        Map<String, MetricsSnapshot> snapshots = new TreeMap<>(metrics.getMetrics());
+        snapshots.keySet().retainAll(statusPage.getLabels());
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("# HELP statuspage_resource_status Status category of the resource, 1 for the current one.\n");
+        sb.append("# TYPE statuspage_resource_status gauge\n");
+        for (MetricsSnapshot snapshot : snapshots.values()) {
+            Map<String, MetricsSnapshot.Resource> resources = new TreeMap<>(snapshot.getStatuses());
+            for (Map.Entry<String, MetricsSnapshot.Resource> resource : resources.entrySet()) {
+                ResourceStatus.Category current = resource.getValue().getStatus().getCategory();
+                for (ResourceStatus.Category category : ResourceStatus.Category.values()) {
+                    sb.append("statuspage_resource_status{source=\"").append(escape(snapshot.getSourceLabel()))
+                            .append("\",resource=\"").append(escape(resource.getKey()))
+                            .append("\",category=\"").append(category.name())
+                            .append("\"} ").append(category == current ? 1 : 0).append('\n')
+                    ;
+                }
+            }
+        }
+
+        List<String> labels = new ArrayList<>(statusPage.getLabels());
+        labels.sort(null);
+        List<String> polls = new ArrayList<>();
+        List<String> failures = new ArrayList<>();
+        List<String> durations = new ArrayList<>();
+        List<String> lastSuccess = new ArrayList<>();
+        List<String> stale = new ArrayList<>();
+        List<String> requests = new ArrayList<>();
+        List<String> hedges = new ArrayList<>();
+        List<String> hedgeWins = new ArrayList<>();
+        List<String> agentPolls = new ArrayList<>();
+        List<String> transferSizes = new ArrayList<>();
+        List<String> roundTrips = new ArrayList<>();
+        for (String label : labels) {
+            SourceStatistics stats = updater.getStatistics(label);
+            if (stats == null) continue;
+
+            String l = "{source=\"" + escape(label) + "\"} ";
+            polls.add(l + stats.getPolls());
+            failures.add(l + stats.getFailures());
+            durations.add(l + stats.getLastDuration() / 1000.0);
+            if (stats.getLastSuccess() != 0) {
+                lastSuccess.add(l + stats.getLastSuccess() / 1000.0);
+            }
+            stale.add(l + (stats.isStale() ? 1 : 0));
+
+            HedgingTransport hedging = updater.getHedging(label);
+            if (hedging != null) {
+                requests.add(l + hedging.getRequests());
+                hedges.add(l + hedging.getHedges());
+                hedgeWins.add(l + hedging.getHedgeWins());
+            }
+
+            if (stats.getAgentPolls() != 0) {
+                agentPolls.add(l + stats.getAgentPolls());
+                transferSizes.add(l + stats.getLastTransferSize());
+                roundTrips.add(l + stats.getLastRoundTrip() / 1000.0);
+            }
+        }
+        family(sb, "statuspage_source_polls_total", "counter", "Number of polls of the source.", polls);
+        family(sb, "statuspage_source_poll_errors_total", "counter", "Number of failed polls of the source.", failures);
+        family(sb, "statuspage_source_poll_duration_seconds", "gauge", "Duration of the last poll of the source.", durations);
+        family(sb, "statuspage_source_last_success_timestamp_seconds", "gauge", "Time of the last successful poll, the snapshot age is time() minus this.", lastSuccess);
+        family(sb, "statuspage_source_stale", "gauge", "1 when the source is not updated for longer than max age.", stale);
+        family(sb, "statuspage_source_requests_total", "counter", "Number of requests of the source hedging its requests, hedges not counted.", requests);
+        family(sb, "statuspage_source_hedged_requests_total", "counter", "Number of hedges sent.", hedges);
+        family(sb, "statuspage_source_hedge_wins_total", "counter", "Number of hedges that completed before the original request.", hedgeWins);
+        family(sb, "statuspage_source_agent_polls_total", "counter", "Number of polls of the source done on an agent.", agentPolls);
+        family(sb, "statuspage_source_agent_transfer_bytes", "gauge", "Size of the summary sent by the agent in its last poll.", transferSizes);
+        family(sb, "statuspage_source_agent_round_trip_seconds", "gauge", "Duration of the last agent call, including the transfer.", roundTrips);
+        return sb.toString();
+    }
+
+    /**
+     * Statistics changing in between the publications, rendered on every scrape.
+     */
+    @VisibleForTesting
+    /*package*/ @Nonnull String renderLive() {
+        List<String> depths = new ArrayList<>();
+        List<String> delivered = new ArrayList<>();
+        List<String> dropped = new ArrayList<>();
+        List<String> coalesced = new ArrayList<>();
+        for (ChangeDispatcher.Mailbox mailbox : updater.getDispatcher().getMailboxes()) {
+            String l = "{listener=\"" + escape(mailbox.getListener().getClass().getName()) + "\"} ";
+            depths.add(l + mailbox.getDepth());
+            delivered.add(l + mailbox.getDelivered());
+            dropped.add(l + mailbox.getDropped());
+            coalesced.add(l + mailbox.getCoalesced());
+        }
+        StringBuilder sb = new StringBuilder();
+        ConcurrencyLimiter limiter = ClientFactory.LIMITER;
+        if (limiter != null) {
+            family(sb, "statuspage_concurrency_limit", "gauge", "Number of concurrent requests permitted by the adaptive limit.", Collections.singletonList(" " + limiter.getLimit()));
+            family(sb, "statuspage_concurrency_in_flight", "gauge", "Number of requests in progress.", Collections.singletonList(" " + limiter.getInFlight()));
+            family(sb, "statuspage_concurrency_limit_decreases_total", "counter", "Number of times the limit was cut on latency growth, timeouts or throttling.", Collections.singletonList(" " + limiter.getDecreases()));
+        }
+        family(sb, "statuspage_listener_queue_depth", "gauge", "Number of resource changes waiting for the listener.", depths);
+        family(sb, "statuspage_listener_changes_delivered_total", "counter", "Number of resource changes delivered to the listener.", delivered);
+        family(sb, "statuspage_listener_changes_dropped_total", "counter", "Number of resource changes dropped as the listener queue was full.", dropped);
+        family(sb, "statuspage_listener_changes_coalesced_total", "counter", "Number of resource changes merged into the one waiting for the same resource.", coalesced);
+        return sb.toString();
+    }
+
+    private static void family(StringBuilder sb, String name, String type, String help, List<String> samples) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        for (String sample : samples) {
+            sb.append(name).append(sample).append('\n');
+        }
+    }
+
+    private static @Nonnull String escape(@Nonnull String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jenkins.plugins.statuspage_gating;
+
+import hudson.Extension;
+import hudson.Functions;
+import hudson.model.PeriodicWork;
+
+import javax.inject.Inject;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Poll sources that are down more often than the rest, and on-demand sources builds wait for, so the builds are
+ * unblocked soon after recovery.
+ */
+@Extension
+public final class RecoveryPoller extends PeriodicWork {
+    private static final long PERIOD = TimeUnit.SECONDS.toMillis(
+            Long.getLong(RecoveryPoller.class.getName() + ".periodSeconds", 15)
+    );
+
+    @Inject private MetricsUpdater updater;
+
+    @Override
+    public long getRecurrencePeriod() {
+        return PERIOD;
+    }
+
+    @Override
+    public long getInitialDelay() {
+        return Functions.getIsUnitTest() ? DAY * 365: getRecurrencePeriod();
+    }
+
+    @Override
+    protected void doRun() {
+        updater.pollDown();
+        updater.demandWaiting();
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jenkins.plugins.statuspage_gating;
+
+import hudson.util.Secret;
+import io.jenkins.plugins.statuspage_gating.api.ReplayTransport;
+import io.jenkins.plugins.statuspage_gating.api.StatusPageIo;
+import io.jenkins.plugins.statuspage_gating.api.TrafficArchive;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+
+/**
+ * Serve all the clients from recorded responses, so benchmarks and tests run offline against real payloads.
+ *
+ * @see ReplayTransport
+ */
+public class ReplayClientFactory extends ClientFactory {
+    private final @Nonnull ReplayTransport transport;
+
+    /**
+     * @param speedup 1 to replay at the recorded latency, 10 ten times faster, 0 not to wait at all.
+     */
+    public ReplayClientFactory(@Nonnull TrafficArchive archive, double speedup) throws IOException {
+        this.transport = new ReplayTransport(archive, speedup);
+    }
+
+    @Override
+    public StatusPageIo create(String rootUrl, Secret apiKey) {
+        return new StatusPageIo(rootUrl, apiKey, transport);
+    }
+
+    @Override
+    public StatusPageIo create(String rootUrl, Secret apiKey, int concurrency) {
+        return create(rootUrl, apiKey);
+    }
+
+    @Override
+    public StatusPageIo create(String rootUrl, Secret apiKey, int concurrency, boolean hedging) {
+        return create(rootUrl, apiKey);
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jenkins.plugins.statuspage_gating;
+
+import io.jenkins.plugins.gating.MetricsSnapshot;
+import io.jenkins.plugins.gating.ResourceStatus;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Changed status of a single resource, as published.
+ *
+ * @see SnapshotListener
+ */
+public final class ResourceChange {
+    private final @Nonnull String sourceLabel;
+    private final @Nonnull String resource;
+    private final @CheckForNull ResourceStatus oldStatus;
+    private final @CheckForNull ResourceStatus newStatus;
+    private final @CheckForNull String description;
+    private final long timestamp;
+
+    /*package*/ ResourceChange(
+            @Nonnull String sourceLabel,
+            @Nonnull String resource,
+            @CheckForNull ResourceStatus oldStatus,
+            @CheckForNull ResourceStatus newStatus,
+            @CheckForNull String description,
+            long timestamp
+    ) {
+        this.sourceLabel = sourceLabel;
+        this.resource = resource;
+        this.oldStatus = oldStatus;
+        this.newStatus = newStatus;
+        this.description = description;
+        this.timestamp = timestamp;
+    }
+
+    public @Nonnull String getSourceLabel() {
+        return sourceLabel;
+    }
+
+    public @Nonnull String getResource() {
+        return resource;
+    }
+
+    /**
+     * Status before the change, usually a {@link io.jenkins.plugins.statuspage_gating.api.Component.Status}, or a
+     * {@link ResourceStatus.Category} for rolled up resources.
+     *
+     * @return null if the resource have just appeared.
+     */
+    public @CheckForNull ResourceStatus getOldStatus() {
+        return oldStatus;
+    }
+
+    /**
+     * @return null if the resource is gone.
+     */
+    public @CheckForNull ResourceStatus getNewStatus() {
+        return newStatus;
+    }
+
+    public @CheckForNull String getDescription() {
+        return description;
+    }
+
+    /**
+     * Time the change was published.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * This change followed by the newer one.
+     */
+    /*package*/ @Nonnull ResourceChange merge(@Nonnull ResourceChange newer) {
+        return new ResourceChange(sourceLabel, resource, oldStatus, newer.newStatus, newer.description, newer.timestamp);
+    }
+
+    /**
+     * Is the resource back in the status it had.
+     */
+    /*package*/ boolean isNoop() {
+        return Objects.equals(oldStatus, newStatus);
+    }
+
+    /**
+     * Resources whose status differ between the snapshots, descriptions are not compared.
+     */
+    /*package*/ static @Nonnull List<ResourceChange> diff(
+            @Nonnull String sourceLabel,
+            @CheckForNull Map<String, MetricsSnapshot.Resource> previous,
+            @Nonnull Map<String, MetricsSnapshot.Resource> current,
+            long timestamp
+    ) {
+        if (previous == null) previous = Collections.emptyMap();
+
+        List<ResourceChange> changes = new ArrayList<>();
+        for (Map.Entry<String, MetricsSnapshot.Resource> entry : current.entrySet()) {
+            MetricsSnapshot.Resource old = previous.get(entry.getKey());
+            ResourceStatus oldStatus = old == null ? null : old.getStatus();
+            ResourceStatus newStatus = entry.getValue().getStatus();
+            if (!Objects.equals(oldStatus, newStatus)) {
+                changes.add(new ResourceChange(
+                        sourceLabel, entry.getKey(), oldStatus, newStatus, entry.getValue().getDescription(), timestamp
+                ));
+            }
+        }
+        for (Map.Entry<String, MetricsSnapshot.Resource> entry : previous.entrySet()) {
+            if (!current.containsKey(entry.getKey())) {
+                changes.add(new ResourceChange(sourceLabel, entry.getKey(), entry.getValue().getStatus(), null, null, timestamp));
+            }
+        }
+        return changes;
+    }
+
+    @Override
+    public String toString() {
+        return resource + ": " + oldStatus + " -> " + newStatus;
+    }
+}
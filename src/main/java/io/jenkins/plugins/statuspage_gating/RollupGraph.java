@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jenkins.plugins.statuspage_gating;
+
+import io.jenkins.plugins.gating.ResourceStatus;
+import io.jenkins.plugins.statuspage_gating.api.Component;
+import io.jenkins.plugins.statuspage_gating.api.ComponentGroup;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Status of parent services rolled up from their children: components, component groups, or other parents.
+ *
+ * Rules are written one per line as <tt>Parent: child, other child</tt>. Component group, when used as a child, has
+ * all of its components as children. Parent is as bad as its worst child, a child that does not exist is unknown.
+ *
+ * Every node counts its children per status category, so a changed component only recomputes its ancestors, and
+ * stops at the first one whose status have not changed.
+ */
+/*package*/ final class RollupGraph {
+    /**
+     * From the best to the worst.
+     */
+    private static final List<ResourceStatus.Category> SEVERITY = Collections.unmodifiableList(Arrays.asList(
+            ResourceStatus.Category.UP,
+            ResourceStatus.Category.DEGRADED,
+            ResourceStatus.Category.UNKNOWN,
+            ResourceStatus.Category.DOWN
+    ));
+
+    private final @Nonnull Map<String, List<String>> rules;
+
+    // Guarded by this
+    private @Nonnull Map<String, Node> nodes = Collections.emptyMap();
+    private @CheckForNull Map<String, String> membership;
+
+    private RollupGraph(@Nonnull Map<String, List<String>> rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * @return null if there are no rules.
+     * @throws IllegalArgumentException When the rules are malformed or cyclic.
+     */
+    public static @CheckForNull RollupGraph parse(@CheckForNull String text) {
+        if (text == null) return null;
+
+        Map<String, List<String>> rules = new LinkedHashMap<>();
+        for (String line : text.split("\\r?\\n")) {
+            line = line.trim();
+            if (line.isEmpty()) continue;
+
+            int colon = line.indexOf(':');
+            if (colon <= 0) throw new IllegalArgumentException("Expected 'Parent: child, ...', got: " + line);
+
+            String parent = line.substring(0, colon).trim();
+            List<String> children = rules.computeIfAbsent(parent, k -> new ArrayList<>());
+            for (String child : line.substring(colon + 1).split(",")) {
+                child = child.trim();
+                if (!child.isEmpty()) children.add(child);
+            }
+            if (children.isEmpty()) throw new IllegalArgumentException("No children of " + parent);
+        }
+        if (rules.isEmpty()) return null;
+
+        Set<String> done = new HashSet<>();
+        for (String parent : rules.keySet()) {
+            checkCycle(rules, parent, new ArrayList<>(), done);
+        }
+        return new RollupGraph(rules);
+    }
+
+    private static void checkCycle(Map<String, List<String>> rules, String node, List<String> path, Set<String> done) {
+        if (done.contains(node)) return;
+        if (path.contains(node)) {
+            path.add(node);
+            throw new IllegalArgumentException("Cyclic rollup: " + String.join(" -> ", path));
+        }
+
+        path.add(node);
+        for (String child : rules.getOrDefault(node, Collections.emptyList())) {
+            checkCycle(rules, child, path, done);
+        }
+        path.remove(path.size() - 1);
+        done.add(node);
+    }
+
+    /**
+     * Apply current statuses of the components.
+     *
+     * @return Rolled up status per parent name.
+     */
+    public synchronized @Nonnull Map<String, ResourceStatus.Category> update(
+            @Nonnull List<Component> components, @Nonnull List<ComponentGroup> groups
+    ) {
+        Map<String, String> groupNames = new HashMap<>();
+        for (ComponentGroup group : groups) {
+            groupNames.put(group.getId(), group.getName());
+        }
+        Map<String, String> members = new HashMap<>();
+        Map<String, ResourceStatus.Category> statuses = new HashMap<>();
+        for (Component component : components) {
+            statuses.put(component.getName(), component.getStatus().getCategory());
+            String group = component.getGroupId() == null ? null : groupNames.get(component.getGroupId());
+            if (group != null) {
+                members.put(component.getName(), group);
+            }
+        }
+
+        // Regrouped components are rare enough to rebuild the graph
+        if (!members.equals(membership)) {
+            rebuild(members);
+        }
+
+        for (Node node : nodes.values()) {
+            if (node.children != 0) continue;
+
+            ResourceStatus.Category status = statuses.get(node.name);
+            setStatus(node, status == null ? ResourceStatus.Category.UNKNOWN : status);
+        }
+
+        Map<String, ResourceStatus.Category> out = new LinkedHashMap<>();
+        for (String parent : rules.keySet()) {
+            out.put(parent, nodes.get(parent).status);
+        }
+        return out;
+    }
+
+    private void rebuild(Map<String, String> members) {
+        Map<String, Node> graph = new HashMap<>();
+        rules.forEach((parent, children) -> {
+            Node p = graph.computeIfAbsent(parent, Node::new);
+            for (String child : children) {
+                graph.computeIfAbsent(child, Node::new).link(p);
+            }
+        });
+        members.forEach((component, group) -> {
+            Node g = graph.get(group);
+            // Only groups used in the rules
+            if (g != null && !rules.containsKey(group) && !component.equals(group)) {
+                graph.computeIfAbsent(component, Node::new).link(g);
+            }
+        });
+
+        nodes = graph;
+        membership = members;
+    }
+
+    private static void setStatus(Node node, ResourceStatus.Category status) {
+        if (node.status == status) return;
+
+        int from = SEVERITY.indexOf(node.status);
+        int to = SEVERITY.indexOf(status);
+        node.status = status;
+        for (Node parent : node.parents) {
+            parent.counts[from]--;
+            parent.counts[to]++;
+            setStatus(parent, parent.worst());
+        }
+    }
+
+    private static final class Node {
+        private final @Nonnull String name;
+        private final @Nonnull List<Node> parents = new ArrayList<>();
+        /**
+         * Number of children per {@link #SEVERITY}.
+         */
+        private final int[] counts = new int[SEVERITY.size()];
+        private int children;
+        private @Nonnull ResourceStatus.Category status = ResourceStatus.Category.UNKNOWN;
+
+        private Node(@Nonnull String name) {
+            this.name = name;
+        }
+
+        private void link(Node parent) {
+            parents.add(parent);
+            parent.children++;
+            parent.counts[SEVERITY.indexOf(status)]++;
+        }
+
+        private @Nonnull ResourceStatus.Category worst() {
+            for (int i = counts.length - 1; i >= 0; i--) {
+                if (counts[i] > 0) return SEVERITY.get(i);
+            }
+            return ResourceStatus.Category.UNKNOWN;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jenkins.plugins.statuspage_gating;
+
+import hudson.ExtensionList;
+import hudson.ExtensionPoint;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Notified about changed statuses of the resources, once they are published to the gating.
+ *
+ * Listeners are notified asynchronously, each on its own thread and in the order of the changes. Every listener has
+ * a bounded queue of changes waiting for delivery, changes not fitting into it are dropped. So a slow listener delays
+ * neither the polling, nor the other listeners. Queue depth, dropped and coalesced changes are reported per listener
+ * at <tt>JENKINS_URL/statuspage-gating/prometheus</tt>.
+ */
+public abstract class SnapshotListener implements ExtensionPoint {
+
+    /**
+     * Status of the resource have changed, it appeared, or it is gone.
+     */
+    public abstract void onChange(@Nonnull ResourceChange change);
+
+    /**
+     * Merge changes of the same resource waiting for delivery into one, from the oldest status to the newest, so the
+     * listener only sees the latest state. Resources that got back to the status they had are not delivered at all.
+     */
+    public boolean isCoalescing() {
+        return false;
+    }
+
+    public static @Nonnull ExtensionList<SnapshotListener> all() {
+        return ExtensionList.lookup(SnapshotListener.class);
+    }
+}
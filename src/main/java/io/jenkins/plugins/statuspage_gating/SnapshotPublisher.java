@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jenkins.plugins.statuspage_gating;
+
+import hudson.model.Queue;
+import io.jenkins.plugins.gating.GatingMetrics;
+import io.jenkins.plugins.gating.MetricsSnapshot;
+import jenkins.util.Timer;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Publish results of finished sources to {@link GatingMetrics} in micro-batches.
+ *
+ * Results are collected until the batch window elapses, or until the poll cycle ends, whatever comes first. Only the
+ * latest result per source label is kept. The batch is published holding the {@link Queue} lock, so the queue
+ * maintenance re-checking waiting builds sees all of the batch at once, and runs once per batch instead of once per
+ * source.
+ */
+/*package*/ final class SnapshotPublisher {
+    /*package*/ static final long WINDOW = Long.getLong(SnapshotPublisher.class.getName() + ".windowMillis", 500);
+
+    private final @Nonnull Supplier<GatingMetrics> metrics;
+
+    /**
+     * Notified about changed resources of every published snapshot.
+     */
+    private final @Nonnull Consumer<List<ResourceChange>> changes;
+
+    /**
+     * Held while a batch is taken and published, so batches are published in order.
+     */
+    private final Object flushLock = new Object();
+
+    // Guarded by this
+    private Map<String, Consumer<GatingMetrics>> pending = new LinkedHashMap<>();
+    private boolean flushScheduled;
+
+    /**
+     * Number of batches published.
+     */
+    private volatile long version;
+
+    /**
+     * Resources of the latest published snapshot per source label.
+     */
+    private final Map<String, Map<String, MetricsSnapshot.Resource>> published = new ConcurrentHashMap<>();
+
+    /*package*/ SnapshotPublisher(@Nonnull Supplier<GatingMetrics> metrics) {
+        this(metrics, changes -> {});
+    }
+
+    /*package*/ SnapshotPublisher(@Nonnull Supplier<GatingMetrics> metrics, @Nonnull Consumer<List<ResourceChange>> changes) {
+        this.metrics = metrics;
+        this.changes = changes;
+    }
+
+    public synchronized void update(@Nonnull MetricsSnapshot snapshot) {
+        enqueue(snapshot.getSourceLabel(), m -> {
+            m.update(snapshot);
+            Map<String, MetricsSnapshot.Resource> previous = published.put(snapshot.getSourceLabel(), snapshot.getStatuses());
+            changes.accept(ResourceChange.diff(snapshot.getSourceLabel(), previous, snapshot.getStatuses(), System.currentTimeMillis()));
+        });
+    }
+
+    public synchronized void reportError(@Nonnull String label, @Nonnull MetricsSnapshot.Error error) {
+        enqueue(label, m -> m.reportError(error));
+    }
+
+    private void enqueue(String label, Consumer<GatingMetrics> publication) {
+        pending.put(label, publication);
+        if (!flushScheduled) {
+            flushScheduled = true;
+            Timer.get().schedule(this::flush, WINDOW, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Publish all pending results.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            Map<String, Consumer<GatingMetrics>> batch;
+            synchronized (this) {
+                flushScheduled = false;
+                if (pending.isEmpty()) return;
+
+                batch = pending;
+                pending = new LinkedHashMap<>();
+            }
+
+            GatingMetrics m = metrics.get();
+            Queue.withLock(() -> batch.values().forEach(publication -> publication.accept(m)));
+            version++;
+        }
+    }
+
+    /**
+     * Latest published status of the resource.
+     *
+     * @return null if not published.
+     */
+    public @CheckForNull MetricsSnapshot.Resource getPublished(@Nonnull String label, @Nonnull String resource) {
+        Map<String, MetricsSnapshot.Resource> resources = published.get(label);
+        return resources == null ? null : resources.get(resource);
+    }
+
+    /**
+     * Changes every time some batch is published.
+     */
+    public long getVersion() {
+        return version;
+    }
+}
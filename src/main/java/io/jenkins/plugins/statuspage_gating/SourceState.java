@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jenkins.plugins.statuspage_gating;
+
+import io.jenkins.plugins.statuspage_gating.api.HedgingTransport;
+import io.jenkins.plugins.statuspage_gating.api.LimitingTransport;
+import io.jenkins.plugins.statuspage_gating.api.Page;
+import io.jenkins.plugins.statuspage_gating.api.StatusPageIo;
+import io.jenkins.plugins.statuspage_gating.api.Transport;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Everything kept between polls of a single source configuration.
+ *
+ * The state is replaced when the source configuration changes, and retired when the source is removed. Client (and
+ * its connections) is kept open between polls, and closed once the state is retired and no poll is using it.
+ */
+/*package*/ final class SourceState {
+    private static final Logger LOGGER = Logger.getLogger(SourceState.class.getName());
+
+    private final @Nonnull StatusPage.Source source;
+    private final @Nonnull SourceStatistics statistics;
+    private final @CheckForNull MaintenanceTracker maintenances;
+    private final @CheckForNull PageDiscovery discovery;
+    private final @CheckForNull RollupGraph rollup;
+    private volatile @CheckForNull Page page;
+
+    // Guarded by this
+    private @CheckForNull StatusPageIo client;
+    private @CheckForNull HedgingTransport hedging;
+    private int inFlight;
+    private boolean retired;
+    private @CheckForNull CompletableFuture<Void> refresh;
+
+    /**
+     * @param previous State of the source before it was reconfigured, if any.
+     */
+    /*package*/ SourceState(@Nonnull StatusPage.Source source, @CheckForNull SourceState previous) {
+        this.source = source;
+        // Published snapshot of the previous configuration is degraded if this one does not replace it in time
+        this.statistics = new SourceStatistics(previous == null ? null : previous.statistics, System.currentTimeMillis());
+        this.maintenances = source.getMaintenanceLookahead() == 0 ? null : new MaintenanceTracker();
+        this.discovery = source.getMode() == StatusPage.Source.Mode.DISCOVER ? new PageDiscovery() : null;
+        this.rollup = RollupGraph.parse(source.getRollups());
+
+        // Resolved page is still valid when the source reads the same page with the same credentials
+        if (previous != null && isSamePage(source, previous.source)) {
+            this.page = previous.page;
+        }
+    }
+
+    private static boolean isSamePage(@Nonnull StatusPage.Source a, @Nonnull StatusPage.Source b) {
+        return a.getUrl().equals(b.getUrl())
+                && Objects.equals(a.getApiKey(), b.getApiKey())
+                && a.getPage().equals(b.getPage())
+        ;
+    }
+
+    public @Nonnull StatusPage.Source getSource() {
+        return source;
+    }
+
+    public @Nonnull SourceStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Open incidents and maintenances, tracked only when maintenance lookahead is configured.
+     */
+    public @CheckForNull MaintenanceTracker getMaintenances() {
+        return maintenances;
+    }
+
+    /**
+     * Discovered pages, for discovering sources only.
+     */
+    public @CheckForNull PageDiscovery getDiscovery() {
+        return discovery;
+    }
+
+    /**
+     * Rollup of parent services, when configured.
+     */
+    public @CheckForNull RollupGraph getRollup() {
+        return rollup;
+    }
+
+    /**
+     * Page of the configured name, as resolved by the last successful poll.
+     *
+     * @return null if not resolved yet.
+     */
+    public @CheckForNull Page getPage() {
+        return page;
+    }
+
+    /**
+     * @param page null to resolve the page again on the next poll.
+     */
+    public void setPage(@CheckForNull Page page) {
+        this.page = page;
+    }
+
+    /**
+     * Client to poll the source with, to be handed back by {@link #release()}.
+     */
+    public synchronized @Nonnull StatusPageIo acquire() {
+        if (client == null) {
+            int concurrency = discovery != null ? PollingExecutor.POOL_SIZE : 1;
+            client = ClientFactory.get().create(source.getUrl(), source.getApiKey(), concurrency, source.isHedging());
+            client.setMaxResponseSize(source.getMaxResponseSize() * 1024L);
+            Transport transport = client.getTransport();
+            if (transport instanceof LimitingTransport) {
+                transport = ((LimitingTransport) transport).getDelegate();
+            }
+            if (transport instanceof HedgingTransport) {
+                hedging = (HedgingTransport) transport;
+            }
+        }
+        inFlight++;
+        return client;
+    }
+
+    /**
+     * Hedging transport of the client, for sources hedging the requests.
+     */
+    public synchronized @CheckForNull HedgingTransport getHedging() {
+        return hedging;
+    }
+
+    public synchronized void release() {
+        inFlight--;
+        if (retired && inFlight == 0) closeClient();
+    }
+
+    /**
+     * Join the refresh in progress, or start a new one.
+     */
+    public @Nonnull CompletableFuture<Void> refresh(@Nonnull Supplier<CompletableFuture<Void>> start) {
+        CompletableFuture<Void> r;
+        synchronized (this) {
+            if (refresh == null || refresh.isDone()) {
+                refresh = start.get();
+            }
+            r = refresh;
+        }
+        // Cancellation by one of the callers must not affect the others
+        return r.thenApply(v -> v);
+    }
+
+    /**
+     * Stop using this state, closing the client once polls in progress are done.
+     */
+    public synchronized void retire() {
+        retired = true;
+        if (inFlight == 0) closeClient();
+    }
+
+    public synchronized boolean isRetired() {
+        return retired;
+    }
+
+    private void closeClient() {
+        if (client == null) return;
+        try {
+            client.close();
+        } catch (IOException ex) {
+            LOGGER.log(Level.FINE, "Failed closing client of " + source, ex);
+        }
+        client = null;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jenkins.plugins.statuspage_gating;
+
+import javax.annotation.CheckForNull;
+
+/**
+ * Polling statistics of a single source.
+ */
+/*package*/ final class SourceStatistics {
+    /**
+     * Time staleness is measured from before the first success.
+     */
+    private final long created;
+    private long lastSuccess;
+    private boolean stale;
+    private long polls;
+    private long failures;
+    private long lastDuration;
+    private long agentPolls;
+    private long lastTransferSize;
+    private long lastRoundTrip;
+
+    /**
+     * @param previous Statistics of the source before it was reconfigured, whose snapshot is still published.
+     */
+    /*package*/ SourceStatistics(@CheckForNull SourceStatistics previous, long now) {
+        this.created = previous == null ? now : previous.created;
+        if (previous != null) {
+            synchronized (previous) {
+                this.lastSuccess = previous.lastSuccess;
+                this.stale = previous.stale;
+            }
+        }
+    }
+
+    /*package*/ synchronized void recordSuccess(long now) {
+        lastSuccess = now;
+        stale = false;
+    }
+
+    /**
+     * @param duration Milliseconds the poll took.
+     */
+    /*package*/ synchronized void recordPoll(long duration, boolean failed) {
+        polls++;
+        if (failed) failures++;
+        lastDuration = duration;
+    }
+
+    /**
+     * @param size Bytes of the summary sent by the agent.
+     * @param roundTrip Milliseconds the agent call took.
+     */
+    /*package*/ synchronized void recordAgentPoll(long size, long roundTrip) {
+        agentPolls++;
+        lastTransferSize = size;
+        lastRoundTrip = roundTrip;
+    }
+
+    public synchronized long getPolls() {
+        return polls;
+    }
+
+    public synchronized long getFailures() {
+        return failures;
+    }
+
+    /**
+     * Milliseconds the last poll took.
+     */
+    public synchronized long getLastDuration() {
+        return lastDuration;
+    }
+
+    /**
+     * Number of polls done on an agent.
+     */
+    public synchronized long getAgentPolls() {
+        return agentPolls;
+    }
+
+    /**
+     * Bytes of the summary sent by the agent in the last poll done there.
+     */
+    public synchronized long getLastTransferSize() {
+        return lastTransferSize;
+    }
+
+    /**
+     * Milliseconds the last poll done on an agent took, including the transfer.
+     */
+    public synchronized long getLastRoundTrip() {
+        return lastRoundTrip;
+    }
+
+    /**
+     * Time of the last successful poll.
+     *
+     * @return 0 if never succeeded.
+     */
+    public synchronized long getLastSuccess() {
+        return lastSuccess;
+    }
+
+    /**
+     * Milliseconds since the last successful poll.
+     *
+     * @return -1 if never succeeded.
+     */
+    public synchronized long getAge(long now) {
+        return lastSuccess == 0 ? -1 : now - lastSuccess;
+    }
+
+    public synchronized boolean isStale() {
+        return stale;
+    }
+
+    /**
+     * Milliseconds since the last successful poll, or since the source was configured when it never succeeded.
+     */
+    /*package*/ synchronized long getStaleness(long now) {
+        return now - (lastSuccess == 0 ? created : lastSuccess);
+    }
+
+    /**
+     * Mark the source stale, if it was not already.
+     *
+     * @return true if the source have just became stale.
+     */
+    /*package*/ synchronized boolean markStale(long now, long maxAge) {
+        if (stale || getStaleness(now) <= maxAge) return false;
+        stale = true;
+        return true;
+    }
+}
@@ -23,9 +23,11 @@ package io.jenkins.plugins.statuspage_gating;
 
 import hudson.Extension;
 import hudson.ExtensionList;
+import hudson.Util;
 import hudson.util.FormValidation;
 import hudson.util.Secret;
 import io.jenkins.plugins.gating.MetricsProvider;
+import io.jenkins.plugins.statuspage_gating.api.ComponentFilter;
 import io.jenkins.plugins.statuspage_gating.api.Page;
 import io.jenkins.plugins.statuspage_gating.api.StatusPageIo;
 import jenkins.model.GlobalConfiguration;
@@ -61,6 +63,8 @@ public final class StatusPage extends GlobalConfiguration implements MetricsProv
     public static final String TEXT_NO_PAGE = "No page configured!";
 
     private List<Source> sources = Collections.emptyList();
+    private int maxAge = 10;
+    private @CheckForNull String agentLabel;
 
     public static StatusPage get() {
         return ExtensionList.lookupSingleton(StatusPage.class);
@@ -83,6 +87,42 @@ public final class StatusPage extends GlobalConfiguration implements MetricsProv
                 : Collections.unmodifiableList(new ArrayList<>(sources))
         ;
         save();
+
+        // Not available while the configuration is being loaded
+        for (MetricsUpdater updater : ExtensionList.lookup(MetricsUpdater.class)) {
+            updater.reconfigure(this.sources);
+        }
+    }
+
+    /**
+     * Minutes since the last successful update after which source resources are reported unknown.
+     *
+     * @return 0 if never.
+     */
+    public int getMaxAge() {
+        return maxAge;
+    }
+
+    @DataBoundSetter
+    public void setMaxAge(int maxAge) {
+        if (maxAge < 0) throw new IllegalArgumentException("Negative max age: " + maxAge);
+        this.maxAge = maxAge;
+        save();
+    }
+
+    /**
+     * Label of agents to poll page sources on, discovering sources are always polled on controller.
+     *
+     * @return null if polled on controller.
+     */
+    public @CheckForNull String getAgentLabel() {
+        return agentLabel;
+    }
+
+    @DataBoundSetter
+    public void setAgentLabel(@CheckForNull String agentLabel) {
+        this.agentLabel = Util.fixEmptyAndTrim(agentLabel);
+        save();
     }
 
     @RequirePOST
@@ -90,7 +130,8 @@ public final class StatusPage extends GlobalConfiguration implements MetricsProv
     public FormValidation doTestConnection(
             @QueryParameter String url,
             @QueryParameter String apiKey,
-            @QueryParameter("page") String configuredPage
+            @QueryParameter("page") String configuredPage,
+            @QueryParameter String mode
     ) throws FormValidation {
         Jenkins.get().checkPermission(Jenkins.ADMINISTER);
 
@@ -105,9 +146,21 @@ public final class StatusPage extends GlobalConfiguration implements MetricsProv
                 url,
                 Secret.fromString(apiKey)
         );
+        source.setMode(StringUtils.isBlank(mode) ? null : Source.Mode.valueOf(mode));
 
         try (StatusPageIo spi = ClientFactory.get().create(source.getUrl(), source.getApiKey())) {
-            List<Page> actualPages = spi.listPages();
+            if (source.getMode() == Source.Mode.DISCOVER) {
+                List<Page> matching = new PageDiscovery().getPages(spi, source.getPagePattern(), 0);
+                if (matching.isEmpty()) {
+                    return FormValidation.error("No page matches " + source.page);
+                }
+                return FormValidation.ok("Connected! Matching pages: " + matching.stream().map(Page::getName).collect(Collectors.joining(", ")));
+            }
+
+            List<Page> actualPages = source.getMode() == Source.Mode.PUBLIC
+                    ? Collections.singletonList(spi.getSummary().getPage())
+                    : spi.listPages()
+            ;
             String actualPageNames = actualPages.stream().map(Page::getName).collect(Collectors.joining(", "));
 
             Optional<Page> exists = actualPages.stream()
@@ -131,16 +184,97 @@ public final class StatusPage extends GlobalConfiguration implements MetricsProv
         }
     }
 
+    @Restricted(NoExternalUse.class)
+    public FormValidation doCheckAgentLabel(@QueryParameter String value) {
+        if (Util.fixEmptyAndTrim(value) == null) return FormValidation.ok();
+
+        return FormValidation.warning(
+                "Agents poll with a plain HTTP client: hedging, HTTP/2, traffic recording and the concurrency limit do not apply"
+        );
+    }
+
+    @Restricted(NoExternalUse.class)
+    public FormValidation doCheckIncludes(@QueryParameter String value) {
+        return checkPatterns(value);
+    }
+
+    @Restricted(NoExternalUse.class)
+    public FormValidation doCheckExcludes(@QueryParameter String value) {
+        return checkPatterns(value);
+    }
+
+    @Restricted(NoExternalUse.class)
+    public FormValidation doCheckRollups(@QueryParameter String value) {
+        try {
+            RollupGraph.parse(Util.fixEmptyAndTrim(value));
+            return FormValidation.ok();
+        } catch (IllegalArgumentException ex) {
+            return FormValidation.error(ex.getMessage());
+        }
+    }
+
+    private static FormValidation checkPatterns(String value) {
+        try {
+            ComponentFilter.compile(value, null);
+            return FormValidation.ok();
+        } catch (IllegalArgumentException ex) {
+            return FormValidation.error(ex.getMessage());
+        }
+    }
+
     @Override
     public @Nonnull Set<String> getLabels() {
         return sources.stream().map(Source::getLabel).collect(Collectors.toSet());
     }
 
     public static final class Source {
+        /**
+         * Kilobytes.
+         */
+        public static final int DEFAULT_MAX_RESPONSE_SIZE = (int) (StatusPageIo.DEFAULT_MAX_RESPONSE_SIZE / 1024);
+
         private final @Nonnull String label;
         private final @Nonnull String page;
         private final @Nonnull String url;
         private final @CheckForNull Secret apiKey;
+        private @Nonnull Mode mode = Mode.MANAGEMENT;
+        private int maintenanceLookahead;
+        private boolean onDemand;
+        private boolean hedging;
+        private int maxResponseSize = DEFAULT_MAX_RESPONSE_SIZE;
+        private @CheckForNull String includes;
+        private @CheckForNull String excludes;
+        private @CheckForNull String rollups;
+        private transient volatile ComponentFilter filter;
+        private transient volatile ComponentFilter pagePattern;
+
+        /**
+         * The API used to read the page.
+         */
+        public enum Mode {
+            /**
+             * Authenticated REST API, reading pages and components in separate requests.
+             */
+            MANAGEMENT("Management API"),
+            /**
+             * Public summary of a hosted page, reading everything in a single request without authentication.
+             */
+            PUBLIC("Public page summary"),
+            /**
+             * Authenticated REST API, reading all pages matching the page pattern.
+             */
+            DISCOVER("Discover pages");
+
+            private final @Nonnull String displayName;
+
+            Mode(@Nonnull String displayName) {
+                this.displayName = displayName;
+            }
+
+            public @Nonnull String getDisplayName() {
+                return displayName;
+            }
+        }
 
         @DataBoundConstructor
         public Source(
@@ -175,9 +309,155 @@ public final class StatusPage extends GlobalConfiguration implements MetricsProv
             return apiKey;
         }
 
+        public @Nonnull Mode getMode() {
+            return mode;
+        }
+
+        @DataBoundSetter
+        public void setMode(@CheckForNull Mode mode) {
+            this.mode = mode == null ? Mode.MANAGEMENT : mode;
+        }
+
+        /**
+         * Minutes ahead of scheduled maintenance the affected components are reported as under maintenance.
+         *
+         * @return 0 if incidents and maintenances are not tracked.
+         */
+        public int getMaintenanceLookahead() {
+            return maintenanceLookahead;
+        }
+
+        @DataBoundSetter
+        public void setMaintenanceLookahead(int maintenanceLookahead) {
+            if (maintenanceLookahead < 0) throw new IllegalArgumentException("Negative lookahead: " + maintenanceLookahead);
+            this.maintenanceLookahead = maintenanceLookahead;
+        }
+
+        /**
+         * Source is not polled in the background, but refreshed when its resources are asked for.
+         *
+         * @see MetricsUpdater#demand(String, long)
+         */
+        public boolean isOnDemand() {
+            return onDemand;
+        }
+
+        @DataBoundSetter
+        public void setOnDemand(boolean onDemand) {
+            this.onDemand = onDemand;
+        }
+
+        /**
+         * Requests slower than the usual are duplicated, using whichever response arrives first.
+         *
+         * @see io.jenkins.plugins.statuspage_gating.api.HedgingTransport
+         */
+        public boolean isHedging() {
+            return hedging;
+        }
+
+        @DataBoundSetter
+        public void setHedging(boolean hedging) {
+            this.hedging = hedging;
+        }
+
+        /**
+         * Kilobytes of a response to read at most. Bigger responses are aborted without reading them.
+         */
+        public int getMaxResponseSize() {
+            return maxResponseSize;
+        }
+
+        @DataBoundSetter
+        public void setMaxResponseSize(int maxResponseSize) {
+            if (maxResponseSize <= 0) throw new IllegalArgumentException("Response size limit must be positive: " + maxResponseSize);
+            this.maxResponseSize = maxResponseSize;
+        }
+
+        /**
+         * Patterns of components to read, one per line.
+         *
+         * @see ComponentFilter
+         */
+        public @CheckForNull String getIncludes() {
+            return includes;
+        }
+
+        @DataBoundSetter
+        public void setIncludes(@CheckForNull String includes) {
+            this.includes = Util.fixEmptyAndTrim(includes);
+            this.filter = null;
+        }
+
+        /**
+         * Patterns of components not to read, one per line.
+         *
+         * @see ComponentFilter
+         */
+        public @CheckForNull String getExcludes() {
+            return excludes;
+        }
+
+        @DataBoundSetter
+        public void setExcludes(@CheckForNull String excludes) {
+            this.excludes = Util.fixEmptyAndTrim(excludes);
+            this.filter = null;
+        }
+
+        /**
+         * Rules rolling up status of parent services, one per line.
+         *
+         * @see RollupGraph
+         */
+        public @CheckForNull String getRollups() {
+            return rollups;
+        }
+
+        @DataBoundSetter
+        public void setRollups(@CheckForNull String rollups) {
+            rollups = Util.fixEmptyAndTrim(rollups);
+            RollupGraph.parse(rollups); // Validate
+            this.rollups = rollups;
+        }
+
+        /**
+         * Compiled page pattern, for sources discovering pages.
+         */
+        public @Nonnull ComponentFilter getPagePattern() {
+            ComponentFilter p = pagePattern;
+            if (p == null) {
+                pagePattern = p = ComponentFilter.compile(page, null);
+            }
+            return p;
+        }
+
+        /**
+         * Compiled includes and excludes.
+         */
+        public @Nonnull ComponentFilter getFilter() {
+            ComponentFilter f = filter;
+            if (f == null) {
+                filter = f = ComponentFilter.compile(includes, excludes);
+            }
+            return f;
+        }
+
+        /**
+         * Fill in fields missing in configuration saved by older versions.
+         */
+        private Object readResolve() {
+            if (mode == null) {
+                mode = Mode.MANAGEMENT;
+            }
+            if (maxResponseSize <= 0) {
+                maxResponseSize = DEFAULT_MAX_RESPONSE_SIZE;
+            }
+            return this;
+        }
+
         @Override
         public String toString() {
-            return String.format("StatusPage.Source{label='%s', page=%s, url='%s'}", label, page, url);
+            return String.format("StatusPage.Source{label='%s', page=%s, url='%s', mode=%s}", label, page, url, mode);
         }
 
         @Override
@@ -188,12 +468,20 @@ public final class StatusPage extends GlobalConfiguration implements MetricsProv
             return label.equals(source.label) &&
                     page.equals(source.page) &&
                     url.equals(source.url) &&
-                    Objects.equals(apiKey, source.apiKey);
+                    Objects.equals(apiKey, source.apiKey) &&
+                    mode == source.mode &&
+                    maintenanceLookahead == source.maintenanceLookahead &&
+                    onDemand == source.onDemand &&
+                    hedging == source.hedging &&
+                    maxResponseSize == source.maxResponseSize &&
+                    Objects.equals(includes, source.includes) &&
+                    Objects.equals(excludes, source.excludes) &&
+                    Objects.equals(rollups, source.rollups);
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(label, page, url, apiKey);
+            return Objects.hash(label, page, url, apiKey, mode, maintenanceLookahead, onDemand, hedging, maxResponseSize, includes, excludes, rollups);
         }
     }
 }
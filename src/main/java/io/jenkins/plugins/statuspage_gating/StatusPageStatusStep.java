@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jenkins.plugins.statuspage_gating;
+
+import hudson.AbortException;
+import hudson.Extension;
+import io.jenkins.plugins.gating.MetricsSnapshot;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
+
+import javax.annotation.Nonnull;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Status of a StatusPage resource, served from the latest published snapshot without calling the API.
+ *
+ * <pre>
+ * if (statuspageStatus('Vendor/Database') == 'OPERATIONAL') { ... }
+ * statuspageStatus(resource: 'Vendor/Database', maxAge: 60)
+ * </pre>
+ *
+ * With max age, a source not updated for longer is refreshed first, sharing the refresh with concurrent callers.
+ */
+public final class StatusPageStatusStep extends Step {
+    private final @Nonnull String resource;
+    private int maxAge;
+
+    @DataBoundConstructor
+    public StatusPageStatusStep(@Nonnull String resource) {
+        this.resource = resource;
+    }
+
+    public @Nonnull String getResource() {
+        return resource;
+    }
+
+    /**
+     * Seconds the snapshot can be old before it is refreshed.
+     *
+     * @return 0 if the latest snapshot is served as is.
+     */
+    public int getMaxAge() {
+        return maxAge;
+    }
+
+    @DataBoundSetter
+    public void setMaxAge(int maxAge) {
+        if (maxAge < 0) throw new IllegalArgumentException("Negative max age: " + maxAge);
+        this.maxAge = maxAge;
+    }
+
+    @Override
+    public StepExecution start(StepContext context) {
+        return new Execution(context, resource, maxAge);
+    }
+
+    private static final class Execution extends SynchronousNonBlockingStepExecution<String> {
+        private static final long serialVersionUID = 1L;
+
+        private final @Nonnull String resource;
+        private final int maxAge;
+
+        private Execution(@Nonnull StepContext context, @Nonnull String resource, int maxAge) {
+            super(context);
+            this.resource = resource;
+            this.maxAge = maxAge;
+        }
+
+        @Override
+        protected String run() throws Exception {
+            MetricsUpdater updater = MetricsUpdater.get();
+            if (maxAge > 0) {
+                updater.refresh(resource, TimeUnit.SECONDS.toMillis(maxAge)).get();
+            } else {
+                updater.demand(resource).get();
+            }
+
+            MetricsSnapshot.Resource status = updater.getResource(resource);
+            if (status == null) throw new AbortException("No StatusPage resource '" + resource + "' reported");
+
+            return status.getStatus().toString();
+        }
+    }
+
+    @Extension
+    public static final class DescriptorImpl extends StepDescriptor {
+
+        @Override
+        public String getFunctionName() {
+            return "statuspageStatus";
+        }
+
+        @Override
+        public @Nonnull String getDisplayName() {
+            return "Status of a StatusPage resource";
+        }
+
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return Collections.emptySet();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jenkins.plugins.statuspage_gating;
+
+import io.jenkins.plugins.statuspage_gating.api.Component;
+import io.jenkins.plugins.statuspage_gating.api.ComponentFilter;
+import io.jenkins.plugins.statuspage_gating.api.ComponentGroup;
+import io.jenkins.plugins.statuspage_gating.api.HttpClientTransport;
+import io.jenkins.plugins.statuspage_gating.api.Incident;
+import io.jenkins.plugins.statuspage_gating.api.Page;
+import io.jenkins.plugins.statuspage_gating.api.StatusPageIo;
+import io.jenkins.plugins.statuspage_gating.api.Summary;
+import hudson.remoting.ClassFilter;
+import hudson.remoting.ObjectInputStreamEx;
+import jenkins.security.MasterToSlaveCallable;
+import org.apache.http.impl.client.HttpClients;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Read the summary of a single page source, on the controller or on an agent.
+ *
+ * Only the parsed summary is sent back from the agent, never the responses. The class avoids references to the
+ * controller state, so it is cheap to load on the agent.
+ */
+/*package*/ final class SummaryReader extends MasterToSlaveCallable<SummaryReader.Result, IOException> {
+    private static final long serialVersionUID = 1L;
+
+    private final @Nonnull String url;
+    /**
+     * Plain text, as the secrets can not be decrypted on the agent. The channel is encrypted.
+     */
+    private final @CheckForNull String apiKey;
+    private final @Nonnull StatusPage.Source.Mode mode;
+    private final @Nonnull String page;
+    private final @CheckForNull Page resolvedPage;
+    private final @CheckForNull String includes;
+    private final @CheckForNull String excludes;
+    private final long maxResponseSize;
+    private final boolean readIncidents;
+    private final boolean readGroups;
+
+    /*package*/ SummaryReader(
+            @Nonnull StatusPage.Source source, @CheckForNull Page resolvedPage, boolean readIncidents, boolean readGroups
+    ) {
+        this.url = source.getUrl();
+        this.apiKey = source.getApiKey() == null ? null : source.getApiKey().getPlainText();
+        this.mode = source.getMode();
+        this.page = source.getPage();
+        this.resolvedPage = resolvedPage;
+        this.includes = source.getIncludes();
+        this.excludes = source.getExcludes();
+        this.maxResponseSize = source.getMaxResponseSize() * 1024L;
+        this.readIncidents = readIncidents;
+        this.readGroups = readGroups;
+    }
+
+    @Override
+    public @Nonnull Result call() throws IOException {
+        ComponentFilter filter = ComponentFilter.compile(includes, excludes);
+        // Polled rarely from the agent, so the client is not kept between the calls
+        try (StatusPageIo spi = StatusPageIo.withPlainApiKey(url, apiKey, new HttpClientTransport(HttpClients.createSystem()))) {
+            spi.setMaxResponseSize(maxResponseSize);
+            Summary summary = read(spi, mode, page, resolvedPage, filter, readIncidents, readGroups);
+            return new Result(summary);
+        }
+    }
+
+    /**
+     * @param resolvedPage Page of the name resolved by an earlier read, null to look it up.
+     */
+    public static @Nonnull Summary read(
+            @Nonnull StatusPageIo spi,
+            @Nonnull StatusPage.Source.Mode mode,
+            @Nonnull String pageName,
+            @CheckForNull Page resolvedPage,
+            @Nonnull ComponentFilter filter,
+            boolean readIncidents,
+            boolean readGroups
+    ) throws IOException {
+        if (mode == StatusPage.Source.Mode.PUBLIC) {
+            Summary summary = spi.getSummary(filter);
+            if (!Objects.equals(summary.getPage().getName(), pageName)) {
+                throw new IOException("Configured page " + pageName + " does not match " + summary.getPage().getName());
+            }
+            return summary;
+        }
+
+        Page page = resolvedPage != null ? resolvedPage : findPage(spi, pageName);
+        if (page == null) {
+            return new Summary(new Page(null, pageName), Collections.emptyList(), Collections.emptyList(), null);
+        }
+
+        List<Component> components;
+        List<ComponentGroup> groups;
+        if (readGroups) {
+            Summary content = spi.readPage(page, filter);
+            components = content.getComponents();
+            groups = content.getGroups();
+        } else {
+            components = spi.listComponents(page, filter);
+            groups = Collections.emptyList();
+        }
+        List<Incident> incidents = readIncidents ? spi.listOpenIncidents(page) : null;
+        return new Summary(page, components, groups, incidents);
+    }
+
+    private static @CheckForNull Page findPage(@Nonnull StatusPageIo spi, @Nonnull String pageName) throws IOException {
+        for (Page page : spi.listPages()) {
+            // Only read the page configured
+            if (Objects.equals(page.getName(), pageName)) return page;
+        }
+        return null;
+    }
+
+    /**
+     * Summary read on the agent, serialized once so the size transferred is known.
+     */
+    /*package*/ static final class Result implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final @Nonnull byte[] summary;
+
+        private Result(@Nonnull Summary summary) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(summary);
+            }
+            this.summary = bytes.toByteArray();
+        }
+
+        /**
+         * Deserialize the summary, subject to the same class filter as the objects read from the channel.
+         */
+        public @Nonnull Summary getSummary() throws IOException {
+            try (ObjectInputStream in = new ObjectInputStreamEx(
+                    new ByteArrayInputStream(summary), Summary.class.getClassLoader(), ClassFilter.DEFAULT
+            )) {
+                return (Summary) in.readObject();
+            } catch (ClassNotFoundException | ClassCastException ex) {
+                throw new IOException("Failed reading summary sent by agent", ex);
+            }
+        }
+
+        /**
+         * Bytes of the serialized summary.
+         */
+        public int getSize() {
+            return summary.length;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jenkins.plugins.statuspage_gating;
+
+import hudson.Extension;
+import hudson.model.RootAction;
+import jenkins.model.Jenkins;
+import net.sf.json.JSONObject;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.StaplerResponse;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.inject.Inject;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Rolling availability of the resources at <tt>JENKINS_URL/statuspage-uptime/</tt>, and as JSON at
+ * <tt>JENKINS_URL/statuspage-uptime/json?resource=...</tt>.
+ */
+@Extension
+public final class UptimeAction implements RootAction {
+
+    @Inject private MetricsUpdater updater;
+
+    @Override
+    public @CheckForNull String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public @Nonnull String getDisplayName() {
+        return "StatusPage resource uptime";
+    }
+
+    @Override
+    public @Nonnull String getUrlName() {
+        return "statuspage-uptime";
+    }
+
+    /**
+     * Availability per window of all the resources, or of the one asked for, as JSON.
+     */
+    public void doJson(StaplerResponse rsp, @QueryParameter String resource) throws IOException {
+        Jenkins.get().checkPermission(Jenkins.READ);
+
+        Collection<String> resources = resource == null ? getResources() : Collections.singleton(resource);
+        JSONObject out = new JSONObject();
+        for (String r : resources) {
+            out.put(r, getUptime(r));
+        }
+        rsp.setContentType("application/json;charset=UTF-8");
+        rsp.getWriter().print(out.toString());
+    }
+
+    public @Nonnull Collection<String> getResources() {
+        return updater.getUptime().getResources();
+    }
+
+    /**
+     * Availability of the resource from 0 to 1 per window name, -1 when not observed during the window.
+     */
+    public @Nonnull Map<String, Double> getUptime(@Nonnull String resource) {
+        Map<String, Double> uptime = new LinkedHashMap<>();
+        for (UptimeTracker.Window window : UptimeTracker.Window.values()) {
+            uptime.put(window.getDisplayName(), updater.getAvailability(resource, window));
+        }
+        return uptime;
+    }
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jenkins.plugins.statuspage_gating;
+
+import io.jenkins.plugins.gating.MetricsSnapshot;
+import io.jenkins.plugins.gating.ResourceStatus;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Rolling availability of resources, the share of the observed time they were {@link ResourceStatus.Category#UP}.
+ *
+ * Time between two polls is attributed to the status seen by the first of them, split over the buckets it spans. Gaps
+ * longer than {@link #MAX_GAP}, when the source was not polled, are not observed at all. Every window is a ring of
+ * fixed number of buckets with running sums, so memory per resource is constant and queries do not iterate the
+ * buckets. The oldest bucket expires as a whole, so the window covers up to one bucket less than its length.
+ */
+public final class UptimeTracker {
+    private static final Logger LOGGER = Logger.getLogger(UptimeTracker.class.getName());
+
+    /*package*/ static final long MAX_GAP = TimeUnit.MINUTES.toMillis(
+            Long.getLong(UptimeTracker.class.getName() + ".maxGapMinutes", 15)
+    );
+
+    private static final int FORMAT_VERSION = 1;
+
+    public enum Window {
+        HOUR("1h", TimeUnit.MINUTES.toMillis(1), 60),
+        DAY("24h", TimeUnit.MINUTES.toMillis(15), 96),
+        WEEK("7d", TimeUnit.HOURS.toMillis(1), 168);
+
+        private final @Nonnull String displayName;
+        private final long bucketMillis;
+        private final int buckets;
+
+        Window(@Nonnull String displayName, long bucketMillis, int buckets) {
+            this.displayName = displayName;
+            this.bucketMillis = bucketMillis;
+            this.buckets = buckets;
+        }
+
+        public @Nonnull String getDisplayName() {
+            return displayName;
+        }
+    }
+
+    private final @CheckForNull File file;
+    private final Map<String, Resource> resources = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+
+    /**
+     * @param file Where the counters are persisted, null to keep them in memory only.
+     */
+    /*package*/ UptimeTracker(@CheckForNull File file) {
+        this.file = file;
+    }
+
+    /**
+     * Account the time since the previous poll to the resources.
+     */
+    /*package*/ void record(@Nonnull Map<String, MetricsSnapshot.Resource> statuses, long now) {
+        for (Map.Entry<String, MetricsSnapshot.Resource> entry : statuses.entrySet()) {
+            boolean up = entry.getValue().getStatus().getCategory() == ResourceStatus.Category.UP;
+            resources.computeIfAbsent(entry.getKey(), k -> new Resource()).observe(up, now);
+        }
+        dirty = true;
+    }
+
+    /**
+     * Forget resources of the removed source.
+     */
+    /*package*/ void remove(@Nonnull String label) {
+        String prefix = label + "/";
+        dirty |= resources.keySet().removeIf(r -> r.startsWith(prefix));
+    }
+
+    /**
+     * Share of the window the resource was up, from 0 to 1.
+     *
+     * @return -1 if the resource was not observed during the window.
+     */
+    public double getAvailability(@Nonnull String resource, @Nonnull Window window, long now) {
+        Resource r = resources.get(resource);
+        return r == null ? -1 : r.availability(window, now);
+    }
+
+    public @Nonnull Set<String> getResources() {
+        return Collections.unmodifiableSet(new TreeSet<>(resources.keySet()));
+    }
+
+    /*package*/ synchronized void save() {
+        if (file == null || !dirty) return;
+        dirty = false;
+
+        File tmp = new File(file.getPath() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(Files.newOutputStream(tmp.toPath())))) {
+                out.writeInt(FORMAT_VERSION);
+                Map<String, Resource> snapshot = new HashMap<>(resources);
+                out.writeInt(snapshot.size());
+                for (Map.Entry<String, Resource> entry : snapshot.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    entry.getValue().write(out);
+                }
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Failed saving resource uptime to " + file, ex);
+        }
+    }
+
+    /**
+     * Read counters saved before, starting afresh when they can not be read.
+     */
+    /*package*/ static @Nonnull UptimeTracker load(@Nonnull File file) {
+        UptimeTracker tracker = new UptimeTracker(file);
+        try (InputStream is = Files.newInputStream(file.toPath());
+             DataInputStream in = new DataInputStream(new GZIPInputStream(is))
+        ) {
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) throw new IOException("Unknown format version " + version);
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                tracker.resources.put(name, Resource.read(in));
+            }
+        } catch (NoSuchFileException ex) {
+            // Not saved yet
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Failed reading resource uptime from " + file + ", starting afresh", ex);
+            tracker.resources.clear();
+        }
+        return tracker;
+    }
+
+    private static final class Resource {
+        private final Ring[] rings = new Ring[Window.values().length];
+        // Guarded by this
+        private boolean lastUp;
+        private long lastSeen;
+
+        private Resource() {
+            for (Window window : Window.values()) {
+                rings[window.ordinal()] = new Ring(window);
+            }
+        }
+
+        private synchronized void observe(boolean up, long now) {
+            long elapsed = now - lastSeen;
+            if (lastSeen != 0 && elapsed > 0 && elapsed <= MAX_GAP) {
+                for (Ring ring : rings) {
+                    ring.add(lastSeen, now, lastUp);
+                }
+            }
+            lastUp = up;
+            lastSeen = now;
+        }
+
+        private synchronized double availability(Window window, long now) {
+            Ring ring = rings[window.ordinal()];
+            ring.advance(now / window.bucketMillis);
+            return ring.observed == 0 ? -1 : (double) ring.up / ring.observed;
+        }
+
+        private synchronized void write(DataOutputStream out) throws IOException {
+            out.writeBoolean(lastUp);
+            out.writeLong(lastSeen);
+            for (Ring ring : rings) {
+                ring.write(out);
+            }
+        }
+
+        private static Resource read(DataInputStream in) throws IOException {
+            Resource resource = new Resource();
+            resource.lastUp = in.readBoolean();
+            resource.lastSeen = in.readLong();
+            for (Ring ring : resource.rings) {
+                ring.read(in);
+            }
+            return resource;
+        }
+    }
+
+    /**
+     * Milliseconds up and observed per bucket, with their sums over the window.
+     */
+    private static final class Ring {
+        private final @Nonnull Window window;
+        private final int[] upBuckets;
+        private final int[] observedBuckets;
+        /**
+         * Number of the newest bucket since epoch.
+         */
+        private long head;
+        private long up;
+        private long observed;
+
+        private Ring(@Nonnull Window window) {
+            this.window = window;
+            this.upBuckets = new int[window.buckets];
+            this.observedBuckets = new int[window.buckets];
+        }
+
+        /**
+         * Account the time from one time to another into the buckets it falls in, skipping those already expired.
+         */
+        private void add(long from, long to, boolean isUp) {
+            advance(to / window.bucketMillis);
+            long first = Math.max(from / window.bucketMillis, head - window.buckets + 1);
+            for (long bucket = first; bucket <= to / window.bucketMillis; bucket++) {
+                long millis = Math.min(to, (bucket + 1) * window.bucketMillis) - Math.max(from, bucket * window.bucketMillis);
+                int slot = (int) (bucket % window.buckets);
+                observedBuckets[slot] += millis;
+                observed += millis;
+                if (isUp) {
+                    upBuckets[slot] += millis;
+                    up += millis;
+                }
+            }
+        }
+
+        /**
+         * Expire buckets older than the window, at most all of them.
+         */
+        private void advance(long bucket) {
+            if (bucket <= head) return;
+
+            long steps = Math.min(bucket - head, window.buckets);
+            for (long i = 1; i <= steps; i++) {
+                int slot = (int) ((head + i) % window.buckets);
+                up -= upBuckets[slot];
+                observed -= observedBuckets[slot];
+                upBuckets[slot] = 0;
+                observedBuckets[slot] = 0;
+            }
+            head = bucket;
+        }
+
+        private void write(DataOutputStream out) throws IOException {
+            out.writeInt(window.buckets);
+            out.writeLong(head);
+            for (int i = 0; i < window.buckets; i++) {
+                out.writeInt(upBuckets[i]);
+                out.writeInt(observedBuckets[i]);
+            }
+        }
+
+        private void read(DataInputStream in) throws IOException {
+            int buckets = in.readInt();
+            if (buckets != window.buckets) throw new IOException("Expected " + window.buckets + " buckets of " + window + ", got " + buckets);
+
+            head = in.readLong();
+            for (int i = 0; i < buckets; i++) {
+                upBuckets[i] = in.readInt();
+                observedBuckets[i] = in.readInt();
+                up += upBuckets[i];
+                observed += observedBuckets[i];
+            }
+        }
+    }
+}
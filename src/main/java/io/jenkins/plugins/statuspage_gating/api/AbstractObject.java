@@ -25,10 +25,13 @@ package io.jenkins.plugins.statuspage_gating.api;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.io.Serializable;
 import java.util.logging.Logger;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
-public class AbstractObject {
+public class AbstractObject implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     protected static final Logger LOGGER = Logger.getLogger(AbstractObject.class.getName());
 
     private final String id;
@@ -26,6 +26,7 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.jenkins.plugins.gating.ResourceStatus;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 import java.util.logging.Level;
 
@@ -37,6 +38,7 @@ import static io.jenkins.plugins.gating.ResourceStatus.Category.*;
 public final class Component extends AbstractObject {
     private final String description;
     private final Status status;
+    private final @CheckForNull String groupId;
 
     public enum Status implements ResourceStatus {
         OPERATIONAL(UP),
@@ -69,15 +71,22 @@ public final class Component extends AbstractObject {
         }
     }
 
+    public Component(String id, String name, String description, Status status) {
+        this(id, name, description, status, null);
+    }
+
+    @JsonCreator
     public Component(
             @JsonProperty("id") String id,
             @JsonProperty("name") String name,
             @JsonProperty("description") String description,
-            @JsonProperty("status") Status status
+            @JsonProperty("status") Status status,
+            @JsonProperty("group_id") String groupId
     ) {
         super(id, name);
         this.description = description;
         this.status = status;
+        this.groupId = groupId;
     }
 
     public String getDescription() {
@@ -88,6 +97,13 @@ public final class Component extends AbstractObject {
         return status;
     }
 
+    /**
+     * Id of the {@link ComponentGroup} the component belongs to.
+     */
+    public @CheckForNull String getGroupId() {
+        return groupId;
+    }
+
     @Override
     public String toString() {
         return String.format("Component{id='%s', name='%s', status=%s}", getId(), getName(), status);
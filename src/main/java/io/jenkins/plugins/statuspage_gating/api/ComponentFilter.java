@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jenkins.plugins.statuspage_gating.api;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Precompiled include/exclude patterns deciding which components are read.
+ *
+ * Every non-blank line of the pattern text is a glob (<tt>*</tt> and <tt>?</tt> wildcards) or a regular expression
+ * when enclosed in slashes, like <tt>/db-\d+/</tt>. Patterns match component name unless prefixed with <tt>id:</tt>,
+ * or <tt>group:</tt> to match id or name of the component group. All patterns of the same kind are compiled into a
+ * single {@link Pattern}.
+ *
+ * Component is accepted when it matches any include pattern, or there are none, and matches no exclude pattern.
+ */
+public final class ComponentFilter {
+    public static final ComponentFilter ALL = new ComponentFilter(null, null);
+
+    private static final String PREFIX_ID = "id:";
+    private static final String PREFIX_GROUP = "group:";
+
+    private final @CheckForNull Patterns includes;
+    private final @CheckForNull Patterns excludes;
+
+    private ComponentFilter(@CheckForNull Patterns includes, @CheckForNull Patterns excludes) {
+        this.includes = includes;
+        this.excludes = excludes;
+    }
+
+    /**
+     * @throws IllegalArgumentException When some of the patterns is not valid.
+     */
+    public static @Nonnull ComponentFilter compile(@CheckForNull String includes, @CheckForNull String excludes) {
+        Patterns in = Patterns.compile(includes);
+        Patterns ex = Patterns.compile(excludes);
+        if (in == null && ex == null) return ALL;
+        return new ComponentFilter(in, ex);
+    }
+
+    /**
+     * Filter needs group names to decide.
+     */
+    public boolean isGroupSensitive() {
+        return (includes != null && includes.group != null) || (excludes != null && excludes.group != null);
+    }
+
+    public boolean accepts(
+            @CheckForNull String id, @CheckForNull String name, @CheckForNull String groupId, @CheckForNull String groupName
+    ) {
+        if (includes != null && !includes.matches(id, name, groupId, groupName)) return false;
+        return excludes == null || !excludes.matches(id, name, groupId, groupName);
+    }
+
+    private static final class Patterns {
+        private final @CheckForNull Pattern name;
+        private final @CheckForNull Pattern id;
+        private final @CheckForNull Pattern group;
+
+        private Patterns(@CheckForNull Pattern name, @CheckForNull Pattern id, @CheckForNull Pattern group) {
+            this.name = name;
+            this.id = id;
+            this.group = group;
+        }
+
+        private static @CheckForNull Patterns compile(@CheckForNull String text) {
+            if (text == null) return null;
+
+            List<String> names = new ArrayList<>();
+            List<String> ids = new ArrayList<>();
+            List<String> groups = new ArrayList<>();
+            for (String line : text.split("\\r?\\n")) {
+                line = line.trim();
+                if (line.isEmpty()) continue;
+
+                if (line.startsWith(PREFIX_ID)) {
+                    ids.add(toRegex(line.substring(PREFIX_ID.length())));
+                } else if (line.startsWith(PREFIX_GROUP)) {
+                    groups.add(toRegex(line.substring(PREFIX_GROUP.length())));
+                } else {
+                    names.add(toRegex(line));
+                }
+            }
+
+            if (names.isEmpty() && ids.isEmpty() && groups.isEmpty()) return null;
+            return new Patterns(join(names), join(ids), join(groups));
+        }
+
+        private boolean matches(String id, String name, String groupId, String groupName) {
+            return matches(this.name, name)
+                    || matches(this.id, id)
+                    || matches(group, groupId)
+                    || matches(group, groupName)
+            ;
+        }
+
+        private static boolean matches(@CheckForNull Pattern pattern, @CheckForNull String value) {
+            return pattern != null && value != null && pattern.matcher(value).matches();
+        }
+
+        private static String toRegex(String pattern) {
+            if (pattern.length() > 1 && pattern.startsWith("/") && pattern.endsWith("/")) {
+                String regex = pattern.substring(1, pattern.length() - 1);
+                try {
+                    Pattern.compile(regex);
+                } catch (PatternSyntaxException ex) {
+                    throw new IllegalArgumentException("Invalid pattern " + pattern + ": " + ex.getDescription(), ex);
+                }
+                return regex;
+            }
+
+            StringBuilder sb = new StringBuilder();
+            StringBuilder literal = new StringBuilder();
+            for (char c : pattern.toCharArray()) {
+                if (c == '*' || c == '?') {
+                    if (literal.length() > 0) {
+                        sb.append(Pattern.quote(literal.toString()));
+                        literal.setLength(0);
+                    }
+                    sb.append(c == '*' ? ".*" : ".");
+                } else {
+                    literal.append(c);
+                }
+            }
+            if (literal.length() > 0) {
+                sb.append(Pattern.quote(literal.toString()));
+            }
+            return sb.toString();
+        }
+
+        private static @CheckForNull Pattern join(List<String> regexes) {
+            if (regexes.isEmpty()) return null;
+
+            StringBuilder sb = new StringBuilder();
+            for (String regex : regexes) {
+                if (sb.length() > 0) sb.append('|');
+                sb.append("(?:").append(regex).append(')');
+            }
+            return Pattern.compile(sb.toString());
+        }
+    }
+}
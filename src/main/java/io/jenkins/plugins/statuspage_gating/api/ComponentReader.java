@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jenkins.plugins.statuspage_gating.api;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming reader of component arrays.
+ *
+ * Components are read token by token so the (potentially large) payload is never materialized as a tree. Entries
+ * flagged as groups, as served by the public API, are reported as {@link ComponentGroup}s and as components.
+ */
+/*package*/ final class ComponentReader {
+    private static final TypeReference<List<Incident>> TYPE_INCIDENTS = new TypeReference<List<Incident>>(){};
+
+    private ComponentReader() {}
+
+    /**
+     * Read the public page summary.
+     *
+     * @param parser Parser positioned before the summary object.
+     */
+    /*package*/ static @Nonnull Summary readSummary(
+            @Nonnull ObjectMapper mapper, @Nonnull JsonParser parser, @Nonnull ComponentFilter filter
+    ) throws IOException {
+        expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+
+        Page page = null;
+        List<Component> components = new ArrayList<>();
+        List<ComponentGroup> groups = new ArrayList<>();
+        List<Incident> incidents = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "page":
+                    page = mapper.readValue(parser, Page.class);
+                    break;
+                case "components":
+                    readComponents(parser, filter, new HashMap<>(), components, groups);
+                    break;
+                case "incidents":
+                case "scheduled_maintenances":
+                    incidents.addAll(mapper.readValue(parser, TYPE_INCIDENTS));
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        if (page == null) throw new JsonParseException(parser, "No page in summary");
+        return new Summary(page, components, groups, incidents);
+    }
+
+    /**
+     * Read array of components the parser is positioned at.
+     *
+     * Components rejected by the filter are skipped without being instantiated. Group names are resolved from
+     * provided map, and from groups read along the way. Decision about components of groups not yet known is
+     * deferred until the end of the array, in case the filter needs the group name.
+     *
+     * @param groupNames Group names by their ids.
+     */
+    /*package*/ static void readComponents(
+            @Nonnull JsonParser parser,
+            @Nonnull ComponentFilter filter,
+            @Nonnull Map<String, String> groupNames,
+            @Nonnull List<Component> components,
+            @Nonnull List<ComponentGroup> groups
+    ) throws IOException {
+        expect(parser, parser.getCurrentToken(), JsonToken.START_ARRAY);
+
+        boolean groupSensitive = filter.isGroupSensitive();
+        List<String[]> deferred = new ArrayList<>();
+
+        JsonToken token;
+        while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+            String id = null;
+            String name = null;
+            String description = null;
+            String status = null;
+            String groupId = null;
+            boolean group = false;
+            List<String> children = null;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                switch (field) {
+                    case "id": id = parser.getValueAsString(); break;
+                    case "name": name = parser.getValueAsString(); break;
+                    case "description": description = parser.getValueAsString(); break;
+                    case "status": status = parser.getValueAsString(); break;
+                    case "group_id": groupId = parser.getValueAsString(); break;
+                    case "group": group = parser.getValueAsBoolean(); break;
+                    case "components": children = readStrings(parser); break;
+                    default: parser.skipChildren();
+                }
+            }
+
+            if (group) {
+                groups.add(new ComponentGroup(id, name, children));
+                groupNames.put(id, name);
+                if (filter.accepts(id, name, groupId, null)) {
+                    components.add(new Component(id, name, description, Component.Status.forValue(status), groupId));
+                }
+            } else if (groupSensitive && groupId != null && !groupNames.containsKey(groupId)) {
+                deferred.add(new String[] { id, name, description, status, groupId });
+            } else if (filter.accepts(id, name, groupId, groupId == null ? null : groupNames.get(groupId))) {
+                components.add(new Component(id, name, description, Component.Status.forValue(status), groupId));
+            }
+        }
+        expect(parser, token, JsonToken.END_ARRAY);
+
+        for (String[] c : deferred) {
+            if (filter.accepts(c[0], c[1], c[4], groupNames.get(c[4]))) {
+                components.add(new Component(c[0], c[1], c[2], Component.Status.forValue(c[3]), c[4]));
+            }
+        }
+    }
+
+    private static List<String> readStrings(JsonParser parser) throws IOException {
+        if (parser.getCurrentToken() == JsonToken.VALUE_NULL) return null;
+        expect(parser, parser.getCurrentToken(), JsonToken.START_ARRAY);
+
+        List<String> strings = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == null) throw new JsonParseException(parser, "Unterminated array");
+            strings.add(parser.getValueAsString());
+        }
+        return strings;
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws JsonParseException {
+        if (actual != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + ", got " + actual);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jenkins.plugins.statuspage_gating.api;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limit of concurrent requests adapting to the observed latency and errors, shared by {@link LimitingTransport}s.
+ *
+ * Additive increase, multiplicative decrease: the limit grows by one per limit's worth of requests completed while it
+ * is fully used, without latency growing over {@link #TOLERANCE} times the no-load latency. It is cut to
+ * {@link #BACKOFF} of itself on latency growth, timeout, throttled or failed response. Only requests started after the
+ * previous cut can cut it again, so a burst of failures of the same overloaded window counts once.
+ */
+public final class ConcurrencyLimiter {
+    /*package*/ static final double TOLERANCE = 2;
+    /*package*/ static final double BACKOFF = 0.7;
+    /**
+     * Latency growth smaller than this is noise, not overload.
+     */
+    private static final long MIN_GROWTH = TimeUnit.MILLISECONDS.toNanos(50);
+    /**
+     * How fast the no-load latency follows latency growing for good.
+     */
+    private static final double DRIFT = 0.01;
+
+    public enum Outcome {
+        /**
+         * Response arrived, its latency is judged.
+         */
+        SUCCESS,
+        /**
+         * Timeout, throttled or failed response.
+         */
+        OVERLOAD,
+        /**
+         * Failed for reasons unrelated to the load.
+         */
+        IGNORED
+    }
+
+    private final int min;
+    private final int max;
+
+    // Guarded by this
+    private double limit;
+    private int inFlight;
+    /**
+     * Nanoseconds, or -1 when not known yet.
+     */
+    private double baseline = -1;
+    private long lastDecrease = Long.MIN_VALUE;
+    private long decreases;
+
+    public ConcurrencyLimiter(int initial, int min, int max) {
+        if (min < 1 || min > initial || initial > max) {
+            throw new IllegalArgumentException("Expected 1 <= min <= initial <= max, got " + min + ", " + initial + ", " + max);
+        }
+        this.min = min;
+        this.max = max;
+        this.limit = initial;
+    }
+
+    /**
+     * Wait for the permit to perform a request.
+     *
+     * @return Ticket to release the permit with.
+     */
+    public synchronized long acquire() throws InterruptedIOException {
+        while (inFlight >= (int) limit) {
+            try {
+                wait();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for concurrency limit");
+            }
+        }
+        inFlight++;
+        return System.nanoTime();
+    }
+
+    /**
+     * @param latency Nanoseconds until the response arrived, only for {@link Outcome#SUCCESS}.
+     */
+    public synchronized void release(long ticket, Outcome outcome, long latency) {
+        boolean saturated = inFlight >= (int) limit;
+        inFlight--;
+        notifyAll();
+
+        if (outcome == Outcome.IGNORED) return;
+        if (outcome == Outcome.SUCCESS) {
+            if (baseline < 0 || latency < baseline) {
+                baseline = latency;
+            } else {
+                baseline += (latency - baseline) * DRIFT;
+            }
+
+            if (latency <= baseline * TOLERANCE || latency - baseline < MIN_GROWTH) {
+                if (saturated) {
+                    limit = Math.min(max, limit + 1 / limit);
+                }
+                return;
+            }
+        }
+
+        // Started before the previous cut, so it is the same overload
+        if (ticket <= lastDecrease) return;
+
+        limit = Math.max(min, limit * BACKOFF);
+        lastDecrease = System.nanoTime();
+        decreases++;
+    }
+
+    /**
+     * Number of concurrent requests permitted.
+     */
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Number of times the limit was cut.
+     */
+    public synchronized long getDecreases() {
+        return decreases;
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jenkins.plugins.statuspage_gating.api;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Java Flight Recorder events of the plugin, disabled by default.
+ *
+ * Enable them in the recording settings, such as <tt>&lt;event name="io.jenkins.plugins.statuspage_gating.HttpRequest"&gt;
+ * &lt;setting name="enabled"&gt;true&lt;/setting&gt;&lt;/event&gt;</tt>. Event and field names are stable. While an
+ * event is not enabled, {@link Type#begin()} costs a check of its type, and nothing is allocated.
+ *
+ * As the plugin is compiled against Java 8, event types are defined reflectively through <tt>jdk.jfr.EventFactory</tt>.
+ * No events are emitted where the runtime does not support it.
+ */
+public final class FlightRecorderEvents {
+    private static final Logger LOGGER = Logger.getLogger(FlightRecorderEvents.class.getName());
+
+    private static final String PREFIX = "io.jenkins.plugins.statuspage_gating.";
+
+    private static final @CheckForNull Api API = Api.lookup();
+
+    /**
+     * Poll of a single source.
+     */
+    public static final Type SOURCE_POLL = define("SourcePoll", "Source Poll",
+            field(String.class, "source", "Source label"),
+            field(String.class, "mode", "Source mode"),
+            field(int.class, "resources", "Resources reported"),
+            field(boolean.class, "failed", "Failed")
+    );
+
+    /**
+     * HTTP request, including reading of the response body.
+     */
+    public static final Type HTTP_REQUEST = define("HttpRequest", "HTTP Request",
+            field(String.class, "urlTemplate", "URL template"),
+            field(int.class, "status", "Status code"),
+            field(long.class, "bytes", "Response bytes")
+    );
+
+    /**
+     * Deserialization of a response body.
+     */
+    public static final Type DESERIALIZATION = define("Deserialization", "Deserialization",
+            field(String.class, "resource", "Resource type"),
+            field(int.class, "components", "Components read")
+    );
+
+    private FlightRecorderEvents() {}
+
+    public static boolean isSupported() {
+        return API != null;
+    }
+
+    private static @Nonnull Type define(@Nonnull String name, @Nonnull String label, @Nonnull Field... fields) {
+        if (API == null) return new Type(null, null);
+
+        try {
+            return API.define(PREFIX + name, label, Arrays.asList(fields));
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            LOGGER.log(Level.WARNING, "Failed defining flight recorder event " + name, ex);
+            return new Type(null, null);
+        }
+    }
+
+    private static @Nonnull Field field(@Nonnull Class<?> type, @Nonnull String name, @Nonnull String label) {
+        return new Field(type, name, label);
+    }
+
+    /**
+     * Event type.
+     */
+    public static final class Type {
+        private final @CheckForNull Object factory;
+        private final @CheckForNull Object eventType;
+
+        private Type(@CheckForNull Object factory, @CheckForNull Object eventType) {
+            this.factory = factory;
+            this.eventType = eventType;
+        }
+
+        /**
+         * Start timing an event.
+         *
+         * @return null when the event is not enabled.
+         */
+        public @CheckForNull Event begin() {
+            if (factory == null || !API.isEnabled(eventType)) return null;
+
+            return new Event(API.begin(factory));
+        }
+    }
+
+    /**
+     * Event being timed.
+     */
+    public static final class Event {
+        private final @Nonnull Object event;
+
+        private Event(@Nonnull Object event) {
+            this.event = event;
+        }
+
+        /**
+         * Stop timing the event and record it.
+         *
+         * @param values Values of the fields, in the order declared.
+         */
+        public void commit(Object... values) {
+            API.commit(event, values);
+        }
+    }
+
+    private static final class Field {
+        private final @Nonnull Class<?> type;
+        private final @Nonnull String name;
+        private final @Nonnull String label;
+
+        private Field(@Nonnull Class<?> type, @Nonnull String name, @Nonnull String label) {
+            this.type = type;
+            this.name = name;
+            this.label = label;
+        }
+    }
+
+    /**
+     * Reflective access to <tt>jdk.jfr</tt>.
+     */
+    private static final class Api {
+        private final Class<? extends Annotation> nameAnnotation;
+        private final Class<? extends Annotation> labelAnnotation;
+        private final Class<? extends Annotation> categoryAnnotation;
+        private final Class<? extends Annotation> enabledAnnotation;
+        private final Class<? extends Annotation> stackTraceAnnotation;
+        private final Constructor<?> newAnnotationElement;
+        private final Constructor<?> newValueDescriptor;
+        private final Method createFactory;
+        private final Method getEventType;
+        private final Method newEvent;
+        private final Method isEnabled;
+        private final Method begin;
+        private final Method end;
+        private final Method set;
+        private final Method commit;
+
+        @SuppressWarnings("unchecked")
+        private Api() throws ReflectiveOperationException {
+            nameAnnotation = (Class<? extends Annotation>) Class.forName("jdk.jfr.Name");
+            labelAnnotation = (Class<? extends Annotation>) Class.forName("jdk.jfr.Label");
+            categoryAnnotation = (Class<? extends Annotation>) Class.forName("jdk.jfr.Category");
+            enabledAnnotation = (Class<? extends Annotation>) Class.forName("jdk.jfr.Enabled");
+            stackTraceAnnotation = (Class<? extends Annotation>) Class.forName("jdk.jfr.StackTrace");
+            Class<?> annotationElement = Class.forName("jdk.jfr.AnnotationElement");
+            Class<?> valueDescriptor = Class.forName("jdk.jfr.ValueDescriptor");
+            Class<?> eventFactory = Class.forName("jdk.jfr.EventFactory");
+            Class<?> eventType = Class.forName("jdk.jfr.EventType");
+            Class<?> event = Class.forName("jdk.jfr.Event");
+
+            newAnnotationElement = annotationElement.getConstructor(Class.class, Object.class);
+            newValueDescriptor = valueDescriptor.getConstructor(Class.class, String.class, List.class);
+            createFactory = eventFactory.getMethod("create", List.class, List.class);
+            getEventType = eventFactory.getMethod("getEventType");
+            newEvent = eventFactory.getMethod("newEvent");
+            isEnabled = eventType.getMethod("isEnabled");
+            begin = event.getMethod("begin");
+            end = event.getMethod("end");
+            set = event.getMethod("set", int.class, Object.class);
+            commit = event.getMethod("commit");
+        }
+
+        private static @CheckForNull Api lookup() {
+            try {
+                return new Api();
+            } catch (ClassNotFoundException ex) {
+                return null; // Not supported by the runtime
+            } catch (ReflectiveOperationException | RuntimeException ex) {
+                LOGGER.log(Level.WARNING, "Failed looking up flight recorder", ex);
+                return null;
+            }
+        }
+
+        private @Nonnull Type define(
+                @Nonnull String name, @Nonnull String label, @Nonnull List<Field> fields
+        ) throws ReflectiveOperationException {
+            List<Object> annotations = Arrays.asList(
+                    newAnnotationElement.newInstance(nameAnnotation, name),
+                    newAnnotationElement.newInstance(labelAnnotation, label),
+                    newAnnotationElement.newInstance(categoryAnnotation, new String[] {"Jenkins", "StatusPage Gating"}),
+                    newAnnotationElement.newInstance(enabledAnnotation, false),
+                    newAnnotationElement.newInstance(stackTraceAnnotation, false)
+            );
+            List<Object> descriptors = new ArrayList<>();
+            for (Field field : fields) {
+                List<Object> fieldAnnotations = Collections.singletonList(newAnnotationElement.newInstance(labelAnnotation, field.label));
+                descriptors.add(newValueDescriptor.newInstance(field.type, field.name, fieldAnnotations));
+            }
+            Object factory = createFactory.invoke(null, annotations, descriptors);
+            return new Type(factory, getEventType.invoke(factory));
+        }
+
+        private boolean isEnabled(@Nonnull Object eventType) {
+            return (boolean) invoke(isEnabled, eventType);
+        }
+
+        private @Nonnull Object begin(@Nonnull Object factory) {
+            Object event = invoke(newEvent, factory);
+            invoke(begin, event);
+            return event;
+        }
+
+        private void commit(@Nonnull Object event, Object... values) {
+            invoke(end, event);
+            for (int i = 0; i < values.length; i++) {
+                invoke(set, event, i, values[i]);
+            }
+            invoke(commit, event);
+        }
+
+        private static Object invoke(Method method, Object target, Object... args) {
+            try {
+                return method.invoke(target, args);
+            } catch (IllegalAccessException | InvocationTargetException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jenkins.plugins.statuspage_gating.api;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+
+/**
+ * Transport sending a duplicate of a request not completed within the 95th percentile of observed latency, taking
+ * whichever response arrives first.
+ *
+ * Hedges are capped by a budget earning a fraction of a hedge per request, so they never add more than that fraction
+ * of requests to the rate-limited traffic. Throttled response spends the whole budget. The slower attempt is aborted
+ * once the faster one succeeds, releasing its connection and thread without waiting for its response; when its response
+ * arrives before that, it is released without reading the body.
+ */
+public final class HedgingTransport implements Transport {
+    /**
+     * Latencies of the recent requests the percentile is computed from.
+     */
+    private static final int WINDOW = 100;
+    /**
+     * Requests to observe before hedging.
+     */
+    private static final int MIN_SAMPLES = 20;
+    /**
+     * Budget units per hedge, so the budget is not subject to rounding.
+     */
+    private static final long HEDGE = 1000;
+    private static final long BURST = 5 * HEDGE;
+
+    private final @Nonnull Transport delegate;
+    private final @Nonnull Executor executor;
+    private final long earning;
+
+    // Guarded by this
+    private final long[] latencies = new long[WINDOW];
+    private int samples;
+    private long budget;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+
+    /**
+     * @param delegate Transport performing the requests, closed together with this instance. It needs to permit
+     *                 a concurrent request for every hedged one.
+     * @param executor Executor to perform the requests on.
+     * @param ratio Maximal number of hedges per request.
+     */
+    public HedgingTransport(@Nonnull Transport delegate, @Nonnull Executor executor, double ratio) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.earning = Math.round(ratio * HEDGE);
+    }
+
+    @Override
+    public <T> T get(@Nonnull String url, @CheckForNull String authorization, @Nonnull ResponseHandler<T> handler) throws IOException {
+        requests.incrementAndGet();
+        long threshold;
+        synchronized (this) {
+            budget = Math.min(BURST, budget + earning);
+            threshold = percentile95();
+        }
+
+        if (threshold < 0) {
+            return new Attempt<>(url, authorization, handler, new AtomicBoolean(), true).call();
+        }
+
+        AtomicBoolean done = new AtomicBoolean();
+        Attempt<T> primaryAttempt = new Attempt<>(url, authorization, handler, done, true);
+        CompletableFuture<T> primary = submit(primaryAttempt);
+        try {
+            return primary.get(threshold, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            // Fall through to hedge
+        } catch (InterruptedException ex) {
+            throw interrupted(url, ex);
+        } catch (ExecutionException ex) {
+            throw unwrap(ex.getCause());
+        }
+
+        if (!spendBudget()) return await(url, primary);
+
+        hedges.incrementAndGet();
+        Attempt<T> hedgeAttempt = new Attempt<>(url, authorization, handler, done, false);
+        CompletableFuture<T> hedge = submit(hedgeAttempt);
+        hedge.thenRun(hedgeWins::incrementAndGet);
+        primary.thenRun(hedgeAttempt.cancellation::cancel);
+        hedge.thenRun(primaryAttempt.cancellation::cancel);
+
+        // First success, or the failure of the attempt that got the response when both fail
+        CompletableFuture<T> first = new CompletableFuture<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        BiConsumer<T, Throwable> race = (v, ex) -> {
+            if (ex == null) {
+                first.complete(v);
+                return;
+            }
+            Throwable other = failure.getAndSet(ex);
+            if (other != null) {
+                first.completeExceptionally(isAbandoned(ex) ? other : ex);
+            }
+        };
+        primary.whenComplete(race);
+        hedge.whenComplete(race);
+        return await(url, first);
+    }
+
+    /**
+     * Number of requests performed, hedges not counted.
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * Number of hedges sent.
+     */
+    public long getHedges() {
+        return hedges.get();
+    }
+
+    /**
+     * Number of hedges that completed first.
+     */
+    public long getHedgeWins() {
+        return hedgeWins.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    private <T> CompletableFuture<T> submit(Attempt<T> attempt) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return attempt.call();
+            } catch (IOException ex) {
+                throw new CompletionException(ex);
+            }
+        }, executor);
+    }
+
+    private <T> T await(String url, CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            throw interrupted(url, ex);
+        } catch (ExecutionException ex) {
+            throw unwrap(ex.getCause());
+        }
+    }
+
+    private synchronized boolean spendBudget() {
+        if (budget < HEDGE) return false;
+        budget -= HEDGE;
+        return true;
+    }
+
+    private synchronized void record(long nanos) {
+        latencies[samples++ % WINDOW] = nanos;
+        // Keep the index from overflowing, past the minimum
+        if (samples == 2 * WINDOW) samples = WINDOW;
+    }
+
+    private synchronized void throttled() {
+        budget = 0;
+    }
+
+    /**
+     * @return -1 when there is not enough samples.
+     */
+    private long percentile95() {
+        if (samples < MIN_SAMPLES) return -1;
+
+        long[] sorted = Arrays.copyOf(latencies, Math.min(samples, WINDOW));
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(0.95 * sorted.length) - 1];
+    }
+
+    private static boolean isAbandoned(Throwable ex) {
+        return ex instanceof AbandonedException || ex.getCause() instanceof AbandonedException;
+    }
+
+    private static IOException unwrap(Throwable cause) {
+        if (cause instanceof CompletionException && cause.getCause() != null) cause = cause.getCause();
+        if (cause instanceof IOException) return (IOException) cause;
+        if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+        if (cause instanceof Error) throw (Error) cause;
+        return new IOException(cause);
+    }
+
+    private static InterruptedIOException interrupted(String url, InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        InterruptedIOException iioe = new InterruptedIOException("Interrupted accessing " + url);
+        iioe.initCause(ex);
+        return iioe;
+    }
+
+    /**
+     * Single attempt at the request, recording its latency.
+     *
+     * Latency of the primary attempt is recorded even when it is abandoned, as the time until its response arrived or
+     * until it was aborted, whichever came first. Otherwise only the hedges would be sampled once the requests slow
+     * down, and the percentile would never catch up.
+     */
+    private final class Attempt<T> {
+        private final @Nonnull String url;
+        private final @CheckForNull String authorization;
+        private final @Nonnull ResponseHandler<T> handler;
+        /**
+         * Set by the first attempt to get the response.
+         */
+        private final @Nonnull AtomicBoolean done;
+        private final boolean primary;
+        private final @Nonnull Transport.Cancellation cancellation = new Transport.Cancellation();
+
+        private Attempt(
+                @Nonnull String url, @CheckForNull String authorization, @Nonnull ResponseHandler<T> handler,
+                @Nonnull AtomicBoolean done, boolean primary
+        ) {
+            this.url = url;
+            this.authorization = authorization;
+            this.handler = handler;
+            this.done = done;
+            this.primary = primary;
+        }
+
+        private T call() throws IOException {
+            long start = System.nanoTime();
+            try {
+                return delegate.get(url, authorization, rsp -> {
+                    if (rsp.getStatusCode() == 429) throttled();
+                    if (!done.compareAndSet(false, true)) {
+                        if (primary && rsp.getStatusCode() == 200) record(System.nanoTime() - start);
+                        throw new AbandonedException(url);
+                    }
+
+                    T result = handler.handle(rsp);
+                    if (rsp.getStatusCode() == 200) record(System.nanoTime() - start);
+                    return result;
+                }, cancellation);
+            } catch (IOException ex) {
+                if (!cancellation.isCancelled() || isAbandoned(ex)) throw ex;
+
+                // Aborted before its response arrived, so it took at least this long
+                if (primary) record(System.nanoTime() - start);
+                AbandonedException abandoned = new AbandonedException(url);
+                abandoned.initCause(ex);
+                throw abandoned;
+            }
+        }
+    }
+
+    private static final class AbandonedException extends IOException {
+        private AbandonedException(String url) {
+            super("Abandoned in favor of a faster attempt: " + url);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jenkins.plugins.statuspage_gating.api;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * HTTP/2 transport over the JDK 11+ HTTP client, multiplexing concurrent requests to a host over a single connection.
+ *
+ * HTTP/2 is negotiated with the server, falling back to HTTP/1.1 when the server does not support it. As the plugin is
+ * compiled against Java 8, the client is looked up reflectively.
+ */
+public final class Http2Transport implements Transport {
+    private static final Logger LOGGER = Logger.getLogger(Http2Transport.class.getName());
+
+    private static final @CheckForNull Api API = Api.lookup();
+
+    // Guarded by Http2Transport.class
+    private static Http2Transport shared;
+
+    private final @Nonnull Object client;
+
+    private Http2Transport(@Nonnull Object client) {
+        this.client = client;
+    }
+
+    public static boolean isSupported() {
+        return API != null;
+    }
+
+    /**
+     * Transport shared by all the clients, so requests to the same host share a connection.
+     *
+     * @throws UnsupportedOperationException When not supported by the runtime.
+     */
+    public static synchronized @Nonnull Http2Transport shared() {
+        if (API == null) throw new UnsupportedOperationException("HTTP/2 client is not supported by " + System.getProperty("java.version"));
+
+        if (shared == null) {
+            shared = new Http2Transport(API.newClient());
+        }
+        return shared;
+    }
+
+    @Override
+    public <T> T get(@Nonnull String url, @CheckForNull String authorization, @Nonnull ResponseHandler<T> handler) throws IOException {
+        return get(url, authorization, handler, new Cancellation());
+    }
+
+    /**
+     * Cancelling the request stops waiting for its response, and aborts the exchange on Java 16 and newer.
+     */
+    @Override
+    public <T> T get(
+            @Nonnull String url, @CheckForNull String authorization, @Nonnull ResponseHandler<T> handler,
+            @Nonnull Cancellation cancellation
+    ) throws IOException {
+        assert API != null;
+
+        Object response = API.send(client, url, authorization, cancellation);
+        try (InputStream body = API.body(response)) {
+            return handler.handle(new Response() {
+                @Override public int getStatusCode() {
+                    return API.statusCode(response);
+                }
+
+                @Override public @CheckForNull String getHeader(@Nonnull String name) {
+                    return API.header(response, name);
+                }
+
+                @Override public @Nonnull InputStream getBody() {
+                    return body;
+                }
+            });
+        }
+    }
+
+    /**
+     * Shared by all the clients, so kept open.
+     */
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Reflective access to <tt>java.net.http</tt>.
+     */
+    private static final class Api {
+        private final Method newClientBuilder;
+        private final Method clientBuilderVersion;
+        private final Method clientBuilderFollowRedirects;
+        private final Method clientBuilderProxy;
+        private final Method clientBuilderBuild;
+        private final Method newRequestBuilder;
+        private final Method requestBuilderHeader;
+        private final Method requestBuilderBuild;
+        private final Method sendAsync;
+        private final Method statusCode;
+        private final Method body;
+        private final Method headers;
+        private final Method firstValue;
+        private final Object http2;
+        private final Object redirectNormal;
+        private final Object inputStreamHandler;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private Api() throws ReflectiveOperationException {
+            Class<?> client = Class.forName("java.net.http.HttpClient");
+            Class<?> clientBuilder = Class.forName("java.net.http.HttpClient$Builder");
+            Class<? extends Enum> version = (Class<? extends Enum>) Class.forName("java.net.http.HttpClient$Version");
+            Class<? extends Enum> redirect = (Class<? extends Enum>) Class.forName("java.net.http.HttpClient$Redirect");
+            Class<?> request = Class.forName("java.net.http.HttpRequest");
+            Class<?> requestBuilder = Class.forName("java.net.http.HttpRequest$Builder");
+            Class<?> response = Class.forName("java.net.http.HttpResponse");
+            Class<?> bodyHandler = Class.forName("java.net.http.HttpResponse$BodyHandler");
+            Class<?> bodyHandlers = Class.forName("java.net.http.HttpResponse$BodyHandlers");
+            Class<?> httpHeaders = Class.forName("java.net.http.HttpHeaders");
+
+            newClientBuilder = client.getMethod("newBuilder");
+            clientBuilderVersion = clientBuilder.getMethod("version", version);
+            clientBuilderFollowRedirects = clientBuilder.getMethod("followRedirects", redirect);
+            clientBuilderProxy = clientBuilder.getMethod("proxy", ProxySelector.class);
+            clientBuilderBuild = clientBuilder.getMethod("build");
+            newRequestBuilder = request.getMethod("newBuilder", URI.class);
+            requestBuilderHeader = requestBuilder.getMethod("header", String.class, String.class);
+            requestBuilderBuild = requestBuilder.getMethod("build");
+            sendAsync = client.getMethod("sendAsync", request, bodyHandler);
+            statusCode = response.getMethod("statusCode");
+            body = response.getMethod("body");
+            headers = response.getMethod("headers");
+            firstValue = httpHeaders.getMethod("firstValue", String.class);
+            http2 = Enum.valueOf(version, "HTTP_2");
+            redirectNormal = Enum.valueOf(redirect, "NORMAL");
+            inputStreamHandler = bodyHandlers.getMethod("ofInputStream").invoke(null);
+        }
+
+        private static @CheckForNull Api lookup() {
+            try {
+                return new Api();
+            } catch (ClassNotFoundException ex) {
+                return null; // Java 8
+            } catch (ReflectiveOperationException | RuntimeException ex) {
+                LOGGER.log(Level.WARNING, "Failed looking up HTTP/2 client", ex);
+                return null;
+            }
+        }
+
+        private @Nonnull Object newClient() {
+            try {
+                Object builder = newClientBuilder.invoke(null);
+                clientBuilderVersion.invoke(builder, http2);
+                // Same as the HTTP/1.1 client does
+                clientBuilderFollowRedirects.invoke(builder, redirectNormal);
+                clientBuilderProxy.invoke(builder, ProxySelector.getDefault());
+                return clientBuilderBuild.invoke(builder);
+            } catch (IllegalAccessException | InvocationTargetException ex) {
+                throw new IllegalStateException("Failed creating HTTP/2 client", ex);
+            }
+        }
+
+        /**
+         * Send the request asynchronously, so it can be cancelled while waiting for the response.
+         */
+        private @Nonnull Object send(
+                @Nonnull Object client, @Nonnull String url, @CheckForNull String authorization, @Nonnull Cancellation cancellation
+        ) throws IOException {
+            CompletableFuture<?> response;
+            try {
+                Object builder = newRequestBuilder.invoke(null, URI.create(url));
+                if (authorization != null) {
+                    requestBuilderHeader.invoke(builder, "Authorization", authorization);
+                }
+                response = (CompletableFuture<?>) sendAsync.invoke(client, requestBuilderBuild.invoke(builder), inputStreamHandler);
+            } catch (InvocationTargetException ex) {
+                Throwable cause = ex.getCause();
+                if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                throw new IOException("Failed accessing " + url, cause);
+            } catch (IllegalAccessException ex) {
+                throw new IllegalStateException(ex);
+            }
+
+            cancellation.onCancel(() -> response.cancel(true));
+            try {
+                return response.get();
+            } catch (CancellationException ex) {
+                throw new IOException("Aborted accessing " + url, ex);
+            } catch (InterruptedException ex) {
+                response.cancel(true);
+                Thread.currentThread().interrupt();
+                InterruptedIOException iioe = new InterruptedIOException("Interrupted accessing " + url);
+                iioe.initCause(ex);
+                throw iioe;
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                if (cause instanceof IOException) throw (IOException) cause;
+                if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                throw new IOException("Failed accessing " + url, cause);
+            }
+        }
+
+        private int statusCode(@Nonnull Object response) {
+            return (int) invoke(statusCode, response);
+        }
+
+        private @Nonnull InputStream body(@Nonnull Object response) {
+            return (InputStream) invoke(body, response);
+        }
+
+        @SuppressWarnings("unchecked")
+        private @CheckForNull String header(@Nonnull Object response, @Nonnull String name) {
+            Optional<String> value = (Optional<String>) invoke(firstValue, invoke(headers, response), name);
+            return value.orElse(null);
+        }
+
+        private static Object invoke(Method method, Object target, Object... args) {
+            try {
+                return method.invoke(target, args);
+            } catch (IllegalAccessException | InvocationTargetException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jenkins.plugins.statuspage_gating.api;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * HTTP/1.1 transport over Apache HttpClient, needing a connection per concurrent request.
+ */
+public final class HttpClientTransport implements Transport {
+    private final @Nonnull CloseableHttpClient client;
+
+    /**
+     * @param client Client to use, closed together with this instance.
+     */
+    public HttpClientTransport(@Nonnull CloseableHttpClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public <T> T get(@Nonnull String url, @CheckForNull String authorization, @Nonnull ResponseHandler<T> handler) throws IOException {
+        return get(url, authorization, handler, new Cancellation());
+    }
+
+    /**
+     * Aborting the request closes its connection, so it is released from the pool at once.
+     */
+    @Override
+    public <T> T get(
+            @Nonnull String url, @CheckForNull String authorization, @Nonnull ResponseHandler<T> handler,
+            @Nonnull Cancellation cancellation
+    ) throws IOException {
+        HttpGet request = new HttpGet(url);
+        if (authorization != null) {
+            request.setHeader(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        cancellation.onCancel(request::abort);
+        try (CloseableHttpResponse rsp = client.execute(request)) {
+            return handler.handle(new Response() {
+                @Override public int getStatusCode() {
+                    return rsp.getStatusLine().getStatusCode();
+                }
+
+                @Override public @CheckForNull String getHeader(@Nonnull String name) {
+                    Header header = rsp.getFirstHeader(name);
+                    return header == null ? null : header.getValue();
+                }
+
+                @Override public @Nonnull InputStream getBody() throws IOException {
+                    HttpEntity entity = rsp.getEntity();
+                    return entity == null ? new ByteArrayInputStream(new byte[0]) : entity.getContent();
+                }
+            });
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        client.close();
+    }
+}
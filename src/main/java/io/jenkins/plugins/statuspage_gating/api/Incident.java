@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jenkins.plugins.statuspage_gating.api;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+
+/**
+ * Incident or scheduled maintenance.
+ *
+ * @see <a href="https://developer.statuspage.io/#tag/incidents">Api Docs</a>
+ */
+public final class Incident extends AbstractObject {
+    private static final List<String> CLOSED_STATUSES = Arrays.asList("resolved", "postmortem", "completed");
+
+    private final String status;
+    private final @CheckForNull Instant startedAt;
+    private final @CheckForNull Instant updatedAt;
+    private final @CheckForNull Instant scheduledFor;
+    private final @CheckForNull Instant scheduledUntil;
+    private final @Nonnull List<String> componentNames;
+
+    public Incident(
+            @JsonProperty("id") String id,
+            @JsonProperty("name") String name,
+            @JsonProperty("status") String status,
+            @JsonProperty("started_at") String startedAt,
+            @JsonProperty("updated_at") String updatedAt,
+            @JsonProperty("scheduled_for") String scheduledFor,
+            @JsonProperty("scheduled_until") String scheduledUntil,
+            @JsonProperty("components") List<Component> components
+    ) {
+        super(id, name);
+        this.status = status;
+        this.startedAt = parseTime(startedAt);
+        this.updatedAt = parseTime(updatedAt);
+        this.scheduledFor = parseTime(scheduledFor);
+        this.scheduledUntil = parseTime(scheduledUntil);
+        this.componentNames = components == null
+                ? Collections.emptyList()
+                : Collections.unmodifiableList(components.stream().map(Component::getName).collect(Collectors.toList()))
+        ;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public @CheckForNull Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public @CheckForNull Instant getScheduledFor() {
+        return scheduledFor;
+    }
+
+    public @CheckForNull Instant getScheduledUntil() {
+        return scheduledUntil;
+    }
+
+    /**
+     * Names of the affected components.
+     */
+    public @Nonnull List<String> getComponentNames() {
+        return componentNames;
+    }
+
+    public boolean isMaintenance() {
+        return scheduledFor != null;
+    }
+
+    /**
+     * Incident is not yet resolved, or maintenance not yet completed.
+     */
+    public boolean isOpen() {
+        return !CLOSED_STATUSES.contains(status);
+    }
+
+    /**
+     * Start of the time window the incident affects its components.
+     */
+    public @Nonnull Instant getWindowStart() {
+        if (scheduledFor != null) return scheduledFor;
+        if (startedAt != null) return startedAt;
+        return Instant.EPOCH;
+    }
+
+    /**
+     * End of the time window the incident affects its components, {@link Instant#MAX} if not known.
+     */
+    public @Nonnull Instant getWindowEnd() {
+        return scheduledUntil != null ? scheduledUntil : Instant.MAX;
+    }
+
+    private static @CheckForNull Instant parseTime(@CheckForNull String time) {
+        if (time == null || time.isEmpty()) return null;
+        try {
+            return OffsetDateTime.parse(time).toInstant();
+        } catch (DateTimeParseException ex) {
+            LOGGER.log(Level.WARNING, "Failed to deserialize Incident time from '" + time + "'", ex);
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Incident{id='%s', name='%s', status=%s, window=%s/%s}", getId(), getName(), status, getWindowStart(), getWindowEnd());
+    }
+}
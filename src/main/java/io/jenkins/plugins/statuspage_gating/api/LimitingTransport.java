@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jenkins.plugins.statuspage_gating.api;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+/**
+ * Transport performing requests within the {@link ConcurrencyLimiter} shared by all the clients.
+ *
+ * Latency is measured until the response arrives, so the time spent reading the body is not accounted. Responses
+ * throttled (429) or failed (5xx) and timeouts cut the limit, other failures are ignored.
+ */
+public final class LimitingTransport implements Transport {
+    private final @Nonnull Transport delegate;
+    private final @Nonnull ConcurrencyLimiter limiter;
+
+    /**
+     * @param delegate Transport to use, closed together with this instance.
+     */
+    public LimitingTransport(@Nonnull Transport delegate, @Nonnull ConcurrencyLimiter limiter) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+    }
+
+    public @Nonnull Transport getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public <T> T get(@Nonnull String url, @CheckForNull String authorization, @Nonnull ResponseHandler<T> handler) throws IOException {
+        long ticket = limiter.acquire();
+        long start = System.nanoTime();
+        long[] latency = {-1};
+        int[] status = {-1};
+        boolean timeout = false;
+        try {
+            return delegate.get(url, authorization, rsp -> {
+                latency[0] = System.nanoTime() - start;
+                status[0] = rsp.getStatusCode();
+                return handler.handle(rsp);
+            });
+        } catch (InterruptedIOException ex) {
+            // Socket and connect timeouts, or interrupted waiting for the response
+            timeout = latency[0] < 0 && !Thread.currentThread().isInterrupted();
+            throw ex;
+        } finally {
+            ConcurrencyLimiter.Outcome outcome;
+            if (timeout || status[0] == 429 || status[0] >= 500) {
+                outcome = ConcurrencyLimiter.Outcome.OVERLOAD;
+            } else if (latency[0] >= 0) {
+                outcome = ConcurrencyLimiter.Outcome.SUCCESS;
+            } else {
+                outcome = ConcurrencyLimiter.Outcome.IGNORED;
+            }
+            limiter.release(ticket, outcome, latency[0]);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+}
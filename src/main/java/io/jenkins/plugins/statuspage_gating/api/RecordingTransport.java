@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jenkins.plugins.statuspage_gating.api;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CloseShieldInputStream;
+import org.apache.commons.io.input.TeeInputStream;
+import org.apache.commons.io.output.NullOutputStream;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Record responses of the delegate transport into {@link TrafficArchive}.
+ *
+ * Only responses the handler completed are recorded, with the whole body: the rest the handler did not read is read
+ * once it returns. Responses the handler failed on, including the attempts abandoned by {@link HedgingTransport}, are
+ * not recorded, so replay never serves a partial body. Failing to record does not fail the request.
+ */
+public final class RecordingTransport implements Transport {
+    private static final Logger LOGGER = Logger.getLogger(RecordingTransport.class.getName());
+
+    private final @Nonnull Transport delegate;
+    private final @Nonnull TrafficArchive archive;
+
+    /**
+     * @param delegate Transport to use, closed together with this instance.
+     */
+    public RecordingTransport(@Nonnull Transport delegate, @Nonnull TrafficArchive archive) {
+        this.delegate = delegate;
+        this.archive = archive;
+    }
+
+    @Override
+    public <T> T get(@Nonnull String url, @CheckForNull String authorization, @Nonnull ResponseHandler<T> handler) throws IOException {
+        return get(url, authorization, handler, new Cancellation());
+    }
+
+    @Override
+    public <T> T get(
+            @Nonnull String url, @CheckForNull String authorization, @Nonnull ResponseHandler<T> handler,
+            @Nonnull Cancellation cancellation
+    ) throws IOException {
+        long start = System.nanoTime();
+        return delegate.get(url, authorization, rsp -> {
+            long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            TeeBody body = new TeeBody(rsp);
+            // Not recorded when the handler fails
+            T result = handler.handle(new Response() {
+                @Override public int getStatusCode() {
+                    return rsp.getStatusCode();
+                }
+
+                @Override public @CheckForNull String getHeader(@Nonnull String name) {
+                    return rsp.getHeader(name);
+                }
+
+                @Override public @Nonnull InputStream getBody() throws IOException {
+                    return body.open();
+                }
+            });
+
+            Map<String, String> headers = new LinkedHashMap<>();
+            for (String name : TrafficArchive.HEADERS) {
+                String value = rsp.getHeader(name);
+                if (value != null) headers.put(name, value);
+            }
+            try {
+                archive.record(new TrafficArchive.Exchange(
+                        TrafficArchive.redact(url), rsp.getStatusCode(), headers, body.readFully(), latency
+                ));
+            } catch (IOException ex) {
+                LOGGER.log(Level.WARNING, "Failed recording response of " + TrafficArchive.redact(url), ex);
+            }
+            return result;
+        }, cancellation);
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    /**
+     * Body copied as the handler reads it, kept open after the handler closes it so the rest can be read as well. The
+     * delegate transport releases it.
+     */
+    private static final class TeeBody {
+        private final @Nonnull Response rsp;
+        private final @Nonnull ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        private @CheckForNull InputStream body;
+
+        private TeeBody(@Nonnull Response rsp) {
+            this.rsp = rsp;
+        }
+
+        private @Nonnull InputStream open() throws IOException {
+            if (body == null) {
+                body = rsp.getBody();
+            }
+            return new TeeInputStream(new CloseShieldInputStream(body), copy);
+        }
+
+        /**
+         * Read the rest of the body.
+         */
+        private @Nonnull byte[] readFully() throws IOException {
+            IOUtils.copy(open(), NullOutputStream.NULL_OUTPUT_STREAM);
+            return copy.toByteArray();
+        }
+    }
+}
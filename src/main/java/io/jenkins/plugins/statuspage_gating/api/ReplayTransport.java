@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jenkins.plugins.statuspage_gating.api;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serve responses recorded in {@link TrafficArchive}, without any network access.
+ *
+ * Requests are matched by the path and query of the URL, so the archive can be replayed against any root URL.
+ * Responses recorded for the same request are served in the recorded order, starting over once exhausted.
+ * Authorization is not checked.
+ */
+public final class ReplayTransport implements Transport {
+    private final Map<String, List<TrafficArchive.Exchange>> exchanges = new HashMap<>();
+    private final Map<String, AtomicInteger> served = new HashMap<>();
+    private final double speedup;
+
+    /**
+     * @param speedup 1 to replay at the recorded latency, 10 ten times faster, 0 not to wait at all.
+     */
+    public ReplayTransport(@Nonnull TrafficArchive archive, double speedup) throws IOException {
+        if (speedup < 0) throw new IllegalArgumentException("Negative speedup: " + speedup);
+        this.speedup = speedup;
+
+        for (TrafficArchive.Exchange exchange : archive.load()) {
+            String key = TrafficArchive.key(exchange.url);
+            exchanges.computeIfAbsent(key, k -> new ArrayList<>()).add(exchange);
+            served.putIfAbsent(key, new AtomicInteger());
+        }
+    }
+
+    @Override
+    public <T> T get(@Nonnull String url, @CheckForNull String authorization, @Nonnull ResponseHandler<T> handler) throws IOException {
+        String key = TrafficArchive.key(url);
+        List<TrafficArchive.Exchange> recorded = exchanges.get(key);
+        if (recorded == null) throw new IOException("No response recorded for " + key);
+
+        TrafficArchive.Exchange exchange = recorded.get(Math.floorMod(served.get(key).getAndIncrement(), recorded.size()));
+        if (speedup > 0 && exchange.latencyMillis > 0) {
+            try {
+                Thread.sleep((long) (exchange.latencyMillis / speedup));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted replaying " + key);
+            }
+        }
+
+        return handler.handle(new Response() {
+            @Override public int getStatusCode() {
+                return exchange.status;
+            }
+
+            @Override public @CheckForNull String getHeader(@Nonnull String name) {
+                if ("Content-Length".equalsIgnoreCase(name)) return String.valueOf(exchange.body.length);
+                return exchange.getHeader(name);
+            }
+
+            @Override public @Nonnull InputStream getBody() {
+                return new ByteArrayInputStream(exchange.body);
+            }
+        });
+    }
+
+    /**
+     * Nothing to release, the archive is read upfront.
+     */
+    @Override
+    public void close() {
+    }
+}
@@ -22,75 +22,334 @@
 
 package io.jenkins.plugins.statuspage_gating.api;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.annotations.VisibleForTesting;
 import hudson.util.Secret;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.client.methods.HttpGet;
+import org.apache.commons.io.input.CountingInputStream;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
 import java.io.Closeable;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 public class StatusPageIo implements Closeable {
     public static final String DEFAULT_ROOT_URL = "https://api.statuspage.io/v1/";
+    public static final long DEFAULT_MAX_RESPONSE_SIZE = 10 * 1024 * 1024;
 
     private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final TypeReference<List<Incident>> TYPE_INCIDENTS = new TypeReference<List<Incident>>(){};
 
-    private final CloseableHttpClient client = HttpClients.createSystem();
+    private final @Nonnull Transport transport;
 
     private final @Nonnull String rootUrl;
-    private final @CheckForNull Secret apiKey;
+    /**
+     * Authorization header value, built once for all the requests of this client.
+     */
+    private final @CheckForNull String authorization;
+
+    private volatile long maxResponseSize = DEFAULT_MAX_RESPONSE_SIZE;
 
     public StatusPageIo(@Nonnull String rootUrl, @CheckForNull Secret apiKey) {
+        this(rootUrl, apiKey, HttpClients.createSystem());
+    }
+
+    /**
+     * @param client Client to use, closed together with this instance.
+     */
+    public StatusPageIo(@Nonnull String rootUrl, @CheckForNull Secret apiKey, @Nonnull CloseableHttpClient client) {
+        this(rootUrl, apiKey, new HttpClientTransport(client));
+    }
+
+    /**
+     * @param transport Transport to use, closed together with this instance.
+     */
+    public StatusPageIo(@Nonnull String rootUrl, @CheckForNull Secret apiKey, @Nonnull Transport transport) {
+        this(apiKey == null ? null : apiKey.getPlainText(), rootUrl, transport);
+    }
+
+    private StatusPageIo(@CheckForNull String apiKey, @Nonnull String rootUrl, @Nonnull Transport transport) {
         this.rootUrl = rootUrl;
-        this.apiKey = apiKey;
+        this.authorization = apiKey == null ? null : "OAuth " + apiKey;
+        this.transport = transport;
+    }
+
+    /**
+     * Client for agents, where secrets can not be decrypted.
+     *
+     * @param transport Transport to use, closed together with this instance.
+     */
+    public static @Nonnull StatusPageIo withPlainApiKey(
+            @Nonnull String rootUrl, @CheckForNull String apiKey, @Nonnull Transport transport
+    ) {
+        return new StatusPageIo(apiKey, rootUrl, transport);
+    }
+
+    public @Nonnull Transport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Responses bigger than this are aborted instead of read.
+     */
+    public long getMaxResponseSize() {
+        return maxResponseSize;
+    }
+
+    public void setMaxResponseSize(long maxResponseSize) {
+        if (maxResponseSize <= 0) throw new IllegalArgumentException("Response size limit must be positive: " + maxResponseSize);
+        this.maxResponseSize = maxResponseSize;
+    }
+
+    /**
+     * Create client with connection pool permitting given number of concurrent requests.
+     */
+    public static @Nonnull CloseableHttpClient createPooledClient(int maxConnections) {
+        Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", SSLConnectionSocketFactory.getSystemSocketFactory())
+                .build()
+        ;
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(registry);
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        return HttpClients.custom().useSystemProperties().setConnectionManager(connectionManager).build();
     }
 
     public @Nonnull List<Page> listPages() throws IOException {
         String url = rootUrl + "pages";
-        return fetchResource(client, url, new TypeReference<List<Page>>(){});
+        return fetchResource(url, "pages", new TypeReference<List<Page>>(){});
     }
 
     public @Nonnull List<Component> listComponents(Page page) throws IOException {
+        return listComponents(page, ComponentFilter.ALL);
+    }
+
+    /**
+     * List components accepted by the filter.
+     *
+     * Group names are fetched first when the filter needs them.
+     */
+    public @Nonnull List<Component> listComponents(Page page, @Nonnull ComponentFilter filter) throws IOException {
+        return readPage(page, filter).getComponents();
+    }
+
+    /**
+     * Read components accepted by the filter, together with the component groups served along with them.
+     */
+    public @Nonnull Summary readPage(Page page, @Nonnull ComponentFilter filter) throws IOException {
+        Map<String, String> groupNames = new HashMap<>();
+        if (filter.isGroupSensitive()) {
+            for (ComponentGroup group : listComponentGroups(page)) {
+                groupNames.put(group.getId(), group.getName());
+            }
+        }
+
         String url = rootUrl + "pages/" + page.getId() + "/components";
-        return fetchResource(client, url, new TypeReference<List<Component>>(){});
+        return fetch(url, "pages/{page}/components", body -> deserializePage(page, body, filter, groupNames));
+    }
+
+    public @Nonnull List<ComponentGroup> listComponentGroups(Page page) throws IOException {
+        String url = rootUrl + "pages/" + page.getId() + "/component-groups";
+        return fetchResource(url, "pages/{page}/component-groups", new TypeReference<List<ComponentGroup>>(){});
+    }
+
+    /**
+     * List unresolved incidents, together with upcoming and in-progress maintenances.
+     */
+    public @Nonnull List<Incident> listOpenIncidents(Page page) throws IOException {
+        String url = rootUrl + "pages/" + page.getId() + "/incidents/";
+        Map<String, Incident> incidents = new LinkedHashMap<>();
+        for (String kind : Arrays.asList("unresolved", "upcoming", "active_maintenance")) {
+            for (Incident incident : fetchResource(url + kind, "pages/{page}/incidents/" + kind, TYPE_INCIDENTS)) {
+                incidents.put(incident.getId(), incident);
+            }
+        }
+        return new ArrayList<>(incidents.values());
+    }
+
+    public @Nonnull Summary getSummary() throws IOException {
+        return getSummary(ComponentFilter.ALL);
+    }
+
+    /**
+     * Read all components and groups of a hosted page through the public API in a single request.
+     *
+     * The root URL is expected to be the one of the hosted page, such as https://status.example.com/
+     */
+    public @Nonnull Summary getSummary(@Nonnull ComponentFilter filter) throws IOException {
+        String url = rootUrl + (rootUrl.endsWith("/") ? "" : "/") + "api/v2/summary.json";
+        return fetch(url, "api/v2/summary.json", body -> deserializeSummary(body, filter));
+    }
+
+    private @Nonnull <T> T fetchResource(String url, String template, TypeReference<T> resourceType) throws IOException {
+        return fetch(url, template, body -> deserializeBody(resourceType, body));
     }
 
-    private @Nonnull <T> T fetchResource(CloseableHttpClient client, String url, TypeReference<T> resourceType) throws IOException {
-        HttpGet request = getRequest(url);
-        try (CloseableHttpResponse rsp = client.execute(request)) {
-            checkStatusCode(request, rsp);
-            return deserializeBody(resourceType, rsp.getEntity().getContent());
+    /**
+     * @param template URL relative to the root URL, with variable parts replaced by placeholders, to be reported.
+     */
+    private @Nonnull <T> T fetch(String url, String template, BodyReader<T> reader) throws IOException {
+        FlightRecorderEvents.Event request = FlightRecorderEvents.HTTP_REQUEST.begin();
+        if (request == null) {
+            return transport.get(url, authorization, rsp -> deserialize(template, reader, checkResponse(url, rsp)));
+        }
+
+        int[] status = {-1};
+        CountingInputStream[] body = {null};
+        try {
+            return transport.get(url, authorization, rsp -> {
+                status[0] = rsp.getStatusCode();
+                body[0] = new CountingInputStream(checkResponse(url, rsp));
+                return deserialize(template, reader, body[0]);
+            });
+        } finally {
+            request.commit(template, status[0], body[0] == null ? 0L : body[0].getByteCount());
         }
     }
 
+    private static <T> T deserialize(String template, BodyReader<T> reader, InputStream body) throws IOException {
+        FlightRecorderEvents.Event deserialization = FlightRecorderEvents.DESERIALIZATION.begin();
+        T result = reader.read(body);
+        if (deserialization != null) {
+            deserialization.commit(template, countComponents(result));
+        }
+        return result;
+    }
+
+    private static int countComponents(Object result) {
+        if (result instanceof Summary) return ((Summary) result).getComponents().size();
+        if (result instanceof List) return ((List<?>) result).size();
+        return 0;
+    }
+
     @VisibleForTesting
     /*package*/ static <T> T deserializeBody(TypeReference<T> resourceType, InputStream stream) throws IOException {
         return objectMapper.readValue(stream, resourceType);
     }
 
-    private void checkStatusCode(HttpGet request, CloseableHttpResponse rsp) throws IOException {
-        int statusCode = rsp.getStatusLine().getStatusCode();
-        if (statusCode != 200) throw new IOException("Status code " + statusCode + " accessing " + request.getURI().toString());
+    @VisibleForTesting
+    /*package*/ static @Nonnull Summary deserializeSummary(InputStream stream, ComponentFilter filter) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(stream)) {
+            return ComponentReader.readSummary(objectMapper, parser, filter);
+        }
+    }
+
+    @VisibleForTesting
+    /*package*/ static @Nonnull List<Component> deserializeComponents(
+            InputStream stream, ComponentFilter filter, Map<String, String> groupNames
+    ) throws IOException {
+        return deserializePage(null, stream, filter, groupNames).getComponents();
     }
 
-    private @Nonnull HttpGet getRequest(String pagesUrl) {
-        HttpGet httpGet = new HttpGet(pagesUrl);
-        if (apiKey != null) {
-            httpGet.setHeader("Authorization", "OAuth " + apiKey.getPlainText());
+    private static @Nonnull Summary deserializePage(
+            Page page, InputStream stream, ComponentFilter filter, Map<String, String> groupNames
+    ) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(stream)) {
+            parser.nextToken();
+            List<Component> components = new ArrayList<>();
+            List<ComponentGroup> groups = new ArrayList<>();
+            ComponentReader.readComponents(parser, filter, groupNames, components, groups);
+            return new Summary(page, components, groups, null);
         }
-        return httpGet;
+    }
+
+    /**
+     * Check the response is a JSON of acceptable size, before reading its body.
+     *
+     * @return Body, failing once it reads more than permitted.
+     */
+    private @Nonnull InputStream checkResponse(String url, Transport.Response rsp) throws IOException {
+        int statusCode = rsp.getStatusCode();
+        if (statusCode != 200) throw new IOException("Status code " + statusCode + " accessing " + url);
+
+        // Tolerate missing content type, but not the wrong one
+        String contentType = rsp.getHeader("Content-Type");
+        if (contentType != null && !contentType.toLowerCase(Locale.ENGLISH).contains("json")) {
+            throw new IOException("Expected JSON, got '" + contentType + "' accessing " + url);
+        }
+
+        long limit = maxResponseSize;
+        String contentLength = rsp.getHeader("Content-Length");
+        if (contentLength != null) {
+            try {
+                long length = Long.parseLong(contentLength.trim());
+                if (length > limit) throw new IOException("Response of " + length + " bytes exceeds the limit of " + limit + " accessing " + url);
+            } catch (NumberFormatException ex) {
+                // Enforced on the stream
+            }
+        }
+        return new LimitedInputStream(rsp.getBody(), limit, url);
     }
 
     @Override
     public void close() throws IOException {
-        client.close();
+        transport.close();
+    }
+
+    /**
+     * Stream failing once more than the limit is read, so the rest of the response is never read.
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+        private final long limit;
+        private final @Nonnull String url;
+        private long remaining;
+
+        private LimitedInputStream(@Nonnull InputStream in, long limit, @Nonnull String url) {
+            super(in);
+            this.limit = limit;
+            this.remaining = limit;
+            this.url = url;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) consumed(1);
+            return b;
+        }
+
+        @Override
+        public int read(@Nonnull byte[] b, int off, int len) throws IOException {
+            // Read one past the limit to tell the body exceeds it
+            int read = super.read(b, off, (int) Math.min(len, remaining + 1));
+            if (read > 0) consumed(read);
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, remaining + 1));
+            if (skipped > 0) consumed(skipped);
+            return skipped;
+        }
+
+        private void consumed(long bytes) throws IOException {
+            remaining -= bytes;
+            if (remaining < 0) throw new IOException("Response exceeds the limit of " + limit + " bytes accessing " + url);
+        }
+    }
+
+    @FunctionalInterface
+    private interface BodyReader<T> {
+        T read(InputStream body) throws IOException;
     }
 }
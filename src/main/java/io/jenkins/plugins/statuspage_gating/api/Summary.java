@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jenkins.plugins.statuspage_gating.api;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Content of the public page summary, served without authentication by hosted pages.
+ *
+ * @see <a href="https://metastatuspage.com/api/v2/">Public Api Docs</a>
+ *
+ * Serializable, so it can be read on an agent and sent to the controller.
+ */
+public final class Summary implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final @Nonnull Page page;
+    private final @Nonnull List<Component> components;
+    private final @Nonnull List<ComponentGroup> groups;
+    private final @CheckForNull List<Incident> incidents;
+
+    public Summary(
+            @Nonnull Page page,
+            @Nonnull List<Component> components,
+            @Nonnull List<ComponentGroup> groups,
+            @CheckForNull List<Incident> incidents
+    ) {
+        this.page = page;
+        this.components = Collections.unmodifiableList(components);
+        this.groups = Collections.unmodifiableList(groups);
+        this.incidents = incidents == null ? null : Collections.unmodifiableList(incidents);
+    }
+
+    public @Nonnull Page getPage() {
+        return page;
+    }
+
+    public @Nonnull List<Component> getComponents() {
+        return components;
+    }
+
+    public @Nonnull List<ComponentGroup> getGroups() {
+        return groups;
+    }
+
+    /**
+     * Open incidents and scheduled maintenances.
+     *
+     * @return null if they were not fetched.
+     */
+    public @CheckForNull List<Incident> getIncidents() {
+        return incidents;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Summary{page=%s, components=%d, groups=%d}", page, components.size(), groups.size());
+    }
+}
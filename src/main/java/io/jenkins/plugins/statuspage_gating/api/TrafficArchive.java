@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jenkins.plugins.statuspage_gating.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Directory of recorded responses, to be replayed by {@link ReplayTransport}.
+ *
+ * Every response is stored as <tt>NNNNNN.json</tt> with the URL, status, headers and latency, and <tt>NNNNNN.body</tt>
+ * with the body as received. Authorization is never stored, user info is stripped from the URLs and query parameters
+ * looking like credentials are redacted.
+ *
+ * @see RecordingTransport
+ */
+public final class TrafficArchive {
+    /**
+     * Headers worth replaying, the rest is not stored.
+     */
+    /*package*/ static final List<String> HEADERS = Collections.unmodifiableList(Arrays.asList(
+            "Content-Type", "ETag", "Last-Modified", "Retry-After", "Link"
+    ));
+
+    private static final Pattern USER_INFO = Pattern.compile("^([a-zA-Z][a-zA-Z0-9+.-]*://)[^/?#@]*@");
+    private static final Pattern CREDENTIALS = Pattern.compile("(?i)([?&](?:api_?key|key|token|access_token|secret)=)[^&]*");
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final @Nonnull File dir;
+    private final AtomicInteger sequence;
+
+    /**
+     * @param dir Directory to record to, or replay from. Created when missing, recording appends to what is there.
+     */
+    public TrafficArchive(@Nonnull File dir) throws IOException {
+        Files.createDirectories(dir.toPath());
+        this.dir = dir;
+        String[] recorded = dir.list((d, name) -> name.endsWith(".json"));
+        this.sequence = new AtomicInteger(recorded == null ? 0 : recorded.length);
+    }
+
+    public @Nonnull File getDir() {
+        return dir;
+    }
+
+    /*package*/ void record(@Nonnull Exchange exchange) throws IOException {
+        String name = String.format("%06d", sequence.incrementAndGet());
+
+        ObjectNode json = objectMapper.createObjectNode();
+        json.put("url", exchange.url);
+        json.put("status", exchange.status);
+        json.put("latencyMillis", exchange.latencyMillis);
+        ObjectNode headers = json.putObject("headers");
+        exchange.headers.forEach(headers::put);
+
+        // Body first, so the metadata never refers to the missing one
+        Files.write(new File(dir, name + ".body").toPath(), exchange.body);
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(new File(dir, name + ".json"), json);
+    }
+
+    /**
+     * All recorded responses, in the order of recording.
+     */
+    /*package*/ @Nonnull List<Exchange> load() throws IOException {
+        String[] names = dir.list((d, name) -> name.endsWith(".json"));
+        if (names == null) throw new IOException("Not a directory: " + dir);
+        Arrays.sort(names);
+
+        List<Exchange> exchanges = new ArrayList<>(names.length);
+        for (String name : names) {
+            File json = new File(dir, name);
+            JsonNode node = objectMapper.readTree(json);
+            Map<String, String> headers = new LinkedHashMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = node.path("headers").fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                headers.put(field.getKey(), field.getValue().asText());
+            }
+            byte[] body = Files.readAllBytes(new File(dir, name.replaceFirst("\\.json$", ".body")).toPath());
+            exchanges.add(new Exchange(
+                    node.path("url").asText(), node.path("status").asInt(), headers, body, node.path("latencyMillis").asLong()
+            ));
+        }
+        return exchanges;
+    }
+
+    /**
+     * URL without user info and credentials in its query.
+     */
+    /*package*/ static @Nonnull String redact(@Nonnull String url) {
+        String withoutUser = USER_INFO.matcher(url).replaceFirst("$1");
+        return CREDENTIALS.matcher(withoutUser).replaceAll("$1REDACTED");
+    }
+
+    /**
+     * Path and query of the redacted URL, identifying the request regardless of the host it was recorded from.
+     */
+    /*package*/ static @Nonnull String key(@Nonnull String url) {
+        String redacted = redact(url);
+        try {
+            URI uri = new URI(redacted);
+            return uri.getRawQuery() == null ? uri.getRawPath() : uri.getRawPath() + "?" + uri.getRawQuery();
+        } catch (URISyntaxException ex) {
+            return redacted;
+        }
+    }
+
+    /*package*/ static final class Exchange {
+        /*package*/ final @Nonnull String url;
+        /*package*/ final int status;
+        /*package*/ final @Nonnull Map<String, String> headers;
+        /*package*/ final @Nonnull byte[] body;
+        /**
+         * Milliseconds until the response arrived.
+         */
+        /*package*/ final long latencyMillis;
+
+        /*package*/ Exchange(@Nonnull String url, int status, @Nonnull Map<String, String> headers, @Nonnull byte[] body, long latencyMillis) {
+            this.url = url;
+            this.status = status;
+            this.headers = headers;
+            this.body = body;
+            this.latencyMillis = latencyMillis;
+        }
+
+        /*package*/ @CheckForNull String getHeader(@Nonnull String name) {
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                if (header.getKey().equalsIgnoreCase(name)) return header.getValue();
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jenkins.plugins.statuspage_gating.api;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * HTTP transport performing requests of {@link StatusPageIo}.
+ */
+public interface Transport extends Closeable {
+
+    /**
+     * Perform GET request and read the response, which is released once the handler returns.
+     *
+     * @param authorization Value of the Authorization header, if any.
+     */
+    <T> T get(@Nonnull String url, @CheckForNull String authorization, @Nonnull ResponseHandler<T> handler) throws IOException;
+
+    /**
+     * Perform GET request that is aborted once cancelled, releasing its connection without waiting for the response.
+     *
+     * Transports not able to abort the request complete it as usual.
+     *
+     * @throws IOException When aborted.
+     */
+    default <T> T get(
+            @Nonnull String url, @CheckForNull String authorization, @Nonnull ResponseHandler<T> handler,
+            @Nonnull Cancellation cancellation
+    ) throws IOException {
+        return get(url, authorization, handler);
+    }
+
+    interface Response {
+        int getStatusCode();
+
+        @CheckForNull String getHeader(@Nonnull String name);
+
+        /**
+         * Response body, empty when there is none.
+         */
+        @Nonnull InputStream getBody() throws IOException;
+    }
+
+    @FunctionalInterface
+    interface ResponseHandler<T> {
+        T handle(@Nonnull Response response) throws IOException;
+    }
+
+    /**
+     * Abort actions of a request in progress, run once cancelled.
+     */
+    final class Cancellation {
+        // Guarded by this
+        private boolean cancelled;
+        private final List<Runnable> actions = new ArrayList<>();
+
+        /**
+         * Run the action once cancelled, or right away when already cancelled.
+         */
+        public void onCancel(@Nonnull Runnable action) {
+            synchronized (this) {
+                if (!cancelled) {
+                    actions.add(action);
+                    return;
+                }
+            }
+            action.run();
+        }
+
+        public void cancel() {
+            List<Runnable> run;
+            synchronized (this) {
+                if (cancelled) return;
+                cancelled = true;
+                run = new ArrayList<>(actions);
+                actions.clear();
+            }
+            run.forEach(Runnable::run);
+        }
+
+        public synchronized boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
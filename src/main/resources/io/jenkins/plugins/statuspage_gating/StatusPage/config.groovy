@@ -28,6 +28,14 @@ def f = namespace(lib.FormTagLib)
 StatusPage sp = (StatusPage) instance
 
 f.section(title: "StatusPage.io Gating") {
+    f.entry(field: "maxAge", title: "Max age", description: "Minutes without successful update after which the source resources are reported as unknown. Zero disables the check.") {
+        f.textbox(clazz: "number", value: sp.getMaxAge())
+    }
+
+    f.entry(field: "agentLabel", title: "Poll on agent", description: "Label of agents to poll the pages on, when controller can not reach them. Controller polls while no such agent is online. Discovering sources are always polled on controller. Agents poll with a plain HTTP client, ignoring hedging, HTTP/2, traffic recording and the concurrency limit.") {
+        f.textbox(value: sp.getAgentLabel())
+    }
+
     f.entry(title: "Sources") {
         f.repeatable(var: "instance", name: "sources", items: sp.getSources(), header: "Source", add: "Add Source") {
             StatusPage.Source source = (StatusPage.Source) instance
@@ -44,11 +52,54 @@ f.section(title: "StatusPage.io Gating") {
                     f.textbox(value: source?.getUrl())
                 }
 
-                f.entry(field: "page", title: "Page", description: "Page name to monitor.") {
+                f.entry(field: "page", title: "Page", description: "Page name to monitor. When discovering pages, pattern of page names to monitor, such as <code>*</code> for all pages available for the API key. Resources of discovered pages are prefixed with page name.") {
                     f.textbox(clazz: "required", value: source?.getPage())
                 }
 
-                f.validateButton(title: "Test Connection", progress: "Testing", method: "testConnection", with: "url,apiKey,page")
+                f.entry(field: "mode", title: "Mode", description: "Use '${StatusPage.Source.Mode.PUBLIC.getDisplayName()}' to read hosted page (Service URL) in a single request, without an API key") {
+                    StatusPage.Source.Mode current = source?.getMode() ?: StatusPage.Source.Mode.MANAGEMENT
+                    select(name: "_.mode", class: "setting-input") {
+                        StatusPage.Source.Mode.values().each { mode ->
+                            if (mode == current) {
+                                option(value: mode.name(), selected: "selected") { text(mode.getDisplayName()) }
+                            } else {
+                                option(value: mode.name()) { text(mode.getDisplayName()) }
+                            }
+                        }
+                    }
+                }
+
+                f.entry(field: "maintenanceLookahead", title: "Maintenance lookahead", description: "Minutes ahead of a scheduled maintenance the affected components are reported as under maintenance, so longer builds do not start right before it. Zero disables tracking of incidents and maintenances.") {
+                    f.textbox(clazz: "number", value: source?.getMaintenanceLookahead() ?: 0)
+                }
+
+                f.advanced() {
+                    f.entry(field: "onDemand", title: "On demand", description: "Do not poll the source in the background. Its resources are refreshed when asked for, and served from cache while fresh.") {
+                        f.checkbox(checked: source?.isOnDemand())
+                    }
+
+                    f.entry(field: "hedging", title: "Hedge slow requests", description: "Send a duplicate of a request slower than 95% of the recent ones, using whichever response arrives first. Hedges are capped to a small fraction of the requests.") {
+                        f.checkbox(checked: source?.isHedging())
+                    }
+
+                    f.entry(field: "maxResponseSize", title: "Maximal response size", description: "Kilobytes of a response to read at most. Bigger responses, as well as responses that are not JSON, are aborted without reading them.") {
+                        f.textbox(clazz: "number", value: source?.getMaxResponseSize() ?: StatusPage.Source.DEFAULT_MAX_RESPONSE_SIZE)
+                    }
+
+                    f.entry(field: "includes", title: "Include components", description: "Components to read, one pattern per line. Patterns are globs (<code>*</code>, <code>?</code>) or regular expressions enclosed in slashes (<code>/db-\\d+/</code>), matching component name. Prefix the pattern with <code>id:</code> to match component id, or <code>group:</code> to match group name or id. All components are read when empty.") {
+                        f.textarea(value: source?.getIncludes())
+                    }
+
+                    f.entry(field: "excludes", title: "Exclude components", description: "Components not to read, using the same patterns as includes.") {
+                        f.textarea(value: source?.getExcludes())
+                    }
+
+                    f.entry(field: "rollups", title: "Rollups", description: "Parent services whose status rolls up from their children, reported as <code>label/Parent</code>. One <code>Parent: child, other child</code> per line, where children are component names, component group names, or other parents. Parent is as bad as its worst child.") {
+                        f.textarea(value: source?.getRollups())
+                    }
+                }
+
+                f.validateButton(title: "Test Connection", progress: "Testing", method: "testConnection", with: "url,apiKey,page,mode")
 
                 f.entry() {
                     f.repeatableDeleteButton(value: "Delete Source")
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jenkins.plugins.statuspage_gating.UptimeAction
+
+import io.jenkins.plugins.statuspage_gating.UptimeAction
+import io.jenkins.plugins.statuspage_gating.UptimeTracker
+
+def l = namespace(lib.LayoutTagLib)
+UptimeAction action = (UptimeAction) my
+
+l.layout(title: action.getDisplayName(), permission: app.READ) {
+    l.main_panel {
+        h1("Resource uptime")
+        p("Share of the time the resource was up, out of the time its source was polled.")
+        table(class: "pane sortable bigtable", id: "uptime") {
+            tr {
+                th(class: "pane-header", "Resource")
+                for (UptimeTracker.Window window : UptimeTracker.Window.values()) {
+                    th(class: "pane-header", window.getDisplayName())
+                }
+            }
+            for (String resource : action.getResources()) {
+                tr {
+                    td(class: "pane", resource)
+                    action.getUptime(resource).each { name, availability ->
+                        td(class: "pane", availability < 0 ? "-" : String.format("%.2f%%", availability * 100))
+                    }
+                }
+            }
+        }
+    }
+}
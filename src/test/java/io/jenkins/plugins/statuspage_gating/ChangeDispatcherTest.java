@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jenkins.plugins.statuspage_gating;
+
+import io.jenkins.plugins.gating.MetricsSnapshot;
+import io.jenkins.plugins.gating.ResourceStatus;
+import io.jenkins.plugins.statuspage_gating.api.Component;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.jenkins.plugins.statuspage_gating.api.Component.Status.MAJOR_OUTAGE;
+import static io.jenkins.plugins.statuspage_gating.api.Component.Status.OPERATIONAL;
+import static io.jenkins.plugins.statuspage_gating.api.Component.Status.PARTIAL_OUTAGE;
+import static org.junit.Assert.assertEquals;
+
+public class ChangeDispatcherTest {
+
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    @Test
+    public void diff() {
+        Map<String, MetricsSnapshot.Resource> previous = new HashMap<>();
+        previous.put("s/a", resource("s/a", OPERATIONAL));
+        previous.put("s/b", resource("s/b", OPERATIONAL));
+        previous.put("s/gone", resource("s/gone", OPERATIONAL));
+        Map<String, MetricsSnapshot.Resource> current = new HashMap<>();
+        current.put("s/a", resource("s/a", OPERATIONAL));
+        current.put("s/b", resource("s/b", MAJOR_OUTAGE));
+        current.put("s/new", resource("s/new", PARTIAL_OUTAGE));
+
+        List<ResourceChange> changes = ResourceChange.diff("s", previous, current, 42);
+        changes.sort((a, b) -> a.getResource().compareTo(b.getResource()));
+        assertEquals("[s/b: OPERATIONAL -> MAJOR_OUTAGE, s/gone: OPERATIONAL -> null, s/new: null -> PARTIAL_OUTAGE]", changes.toString());
+        assertEquals("s", changes.get(0).getSourceLabel());
+        assertEquals(42, changes.get(0).getTimestamp());
+
+        assertEquals(3, ResourceChange.diff("s", null, previous, 42).size());
+    }
+
+    @Test
+    public void deliverInOrder() {
+        Recording listener = new Recording(false);
+        ChangeDispatcher dispatcher = new ChangeDispatcher(() -> Collections.singletonList(listener), tasks::add, 10);
+
+        dispatcher.dispatch(Arrays.asList(change("s/a", null, OPERATIONAL), change("s/b", null, OPERATIONAL)));
+        dispatcher.dispatch(Collections.singletonList(change("s/a", OPERATIONAL, MAJOR_OUTAGE)));
+        // Scheduled once, until drained
+        assertEquals(1, tasks.size());
+        assertEquals(Collections.emptyList(), listener.changes);
+
+        runTasks();
+        assertEquals("[s/a: null -> OPERATIONAL, s/b: null -> OPERATIONAL, s/a: OPERATIONAL -> MAJOR_OUTAGE]", listener.changes.toString());
+        ChangeDispatcher.Mailbox mailbox = dispatcher.getMailboxes().get(0);
+        assertEquals(3, mailbox.getDelivered());
+        assertEquals(0, mailbox.getDepth());
+
+        dispatcher.dispatch(Collections.singletonList(change("s/a", MAJOR_OUTAGE, OPERATIONAL)));
+        assertEquals(1, tasks.size());
+    }
+
+    @Test
+    public void bounded() {
+        Recording listener = new Recording(false);
+        ChangeDispatcher dispatcher = new ChangeDispatcher(() -> Collections.singletonList(listener), tasks::add, 2);
+
+        dispatcher.dispatch(Arrays.asList(
+                change("s/a", null, OPERATIONAL), change("s/b", null, OPERATIONAL), change("s/c", null, OPERATIONAL)
+        ));
+        ChangeDispatcher.Mailbox mailbox = dispatcher.getMailboxes().get(0);
+        assertEquals(2, mailbox.getDepth());
+        assertEquals(1, mailbox.getDropped());
+
+        runTasks();
+        assertEquals("[s/a: null -> OPERATIONAL, s/b: null -> OPERATIONAL]", listener.changes.toString());
+    }
+
+    @Test
+    public void coalesce() {
+        Recording listener = new Recording(true);
+        ChangeDispatcher dispatcher = new ChangeDispatcher(() -> Collections.singletonList(listener), tasks::add, 10);
+
+        dispatcher.dispatch(Arrays.asList(change("s/a", OPERATIONAL, PARTIAL_OUTAGE), change("s/b", OPERATIONAL, MAJOR_OUTAGE)));
+        dispatcher.dispatch(Collections.singletonList(change("s/a", PARTIAL_OUTAGE, MAJOR_OUTAGE)));
+        dispatcher.dispatch(Collections.singletonList(change("s/b", MAJOR_OUTAGE, OPERATIONAL)));
+        ChangeDispatcher.Mailbox mailbox = dispatcher.getMailboxes().get(0);
+        assertEquals(2, mailbox.getDepth());
+        assertEquals(2, mailbox.getCoalesced());
+
+        runTasks();
+        // s/b is back where it was
+        assertEquals("[s/a: OPERATIONAL -> MAJOR_OUTAGE]", listener.changes.toString());
+    }
+
+    @Test
+    public void failingListener() {
+        Recording failing = new Recording(false) {
+            @Override public void onChange(@Nonnull ResourceChange change) {
+                throw new IllegalStateException("Failing");
+            }
+        };
+        Recording listener = new Recording(false);
+        ChangeDispatcher dispatcher = new ChangeDispatcher(() -> Arrays.asList(failing, listener), tasks::add, 10);
+
+        dispatcher.dispatch(Arrays.asList(change("s/a", null, OPERATIONAL), change("s/b", null, OPERATIONAL)));
+        runTasks();
+        assertEquals(2, listener.changes.size());
+        assertEquals(2, dispatcher.getMailboxes().stream().filter(m -> m.getListener() == failing).findFirst().get().getDelivered());
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+
+    private static ResourceChange change(String resource, ResourceStatus from, ResourceStatus to) {
+        return new ResourceChange("s", resource, from, to, null, 0);
+    }
+
+    private static MetricsSnapshot.Resource resource(String resource, Component.Status status) {
+        return new MetricsSnapshot.Resource(resource, status, "");
+    }
+
+    private static class Recording extends SnapshotListener {
+        private final boolean coalescing;
+        private final List<ResourceChange> changes = new ArrayList<>();
+
+        private Recording(boolean coalescing) {
+            this.coalescing = coalescing;
+        }
+
+        @Override public void onChange(@Nonnull ResourceChange change) {
+            changes.add(change);
+        }
+
+        @Override public boolean isCoalescing() {
+            return coalescing;
+        }
+    }
+}
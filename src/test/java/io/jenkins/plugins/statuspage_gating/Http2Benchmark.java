@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jenkins.plugins.statuspage_gating;
+
+import hudson.util.Secret;
+import io.jenkins.plugins.statuspage_gating.api.Http2Transport;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static io.jenkins.plugins.statuspage_gating.LoadBenchmark.millis;
+import static io.jenkins.plugins.statuspage_gating.LoadBenchmark.percentile;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Compare HTTP/1.1 and HTTP/2 transports polling sources served by {@link StatusPageSimulator} over cleartext HTTP/2.
+ *
+ * Not run as part of the regular build, run with <tt>mvn test -Dtest=Http2Benchmark</tt> on JDK 11+. Tweak with
+ * <tt>-Dbenchmark.sources=200 -Dbenchmark.pages=50 -Dbenchmark.components=100 -Dbenchmark.latency=150
+ * -Dbenchmark.latencyP99=2000 -Dbenchmark.rounds=10</tt>.
+ */
+public class Http2Benchmark {
+    private static final int SOURCES = Integer.getInteger("benchmark.sources", 200);
+    private static final int PAGES = Integer.getInteger("benchmark.pages", 50);
+    private static final int COMPONENTS = Integer.getInteger("benchmark.components", 100);
+    private static final long LATENCY_MS = Long.getLong("benchmark.latency", 150);
+    private static final long LATENCY_P99_MS = Long.getLong("benchmark.latencyP99", 2000);
+    private static final int ROUNDS = Integer.getInteger("benchmark.rounds", 10);
+
+    @Rule public final JenkinsRule j = new JenkinsRule();
+
+    private final boolean http2 = ClientFactory.HTTP2;
+    private StatusPageSimulator simulator;
+
+    @After
+    public void tearDown() {
+        ClientFactory.HTTP2 = http2;
+        if (simulator != null) simulator.close();
+    }
+
+    @Test
+    public void run() throws Exception {
+        assumeTrue("HTTP/2 client is not supported", Http2Transport.isSupported());
+
+        System.out.printf(
+                "%d sources, %d pages x %d components, latency p50 %d ms / p99 %d ms%n",
+                SOURCES, PAGES, COMPONENTS, LATENCY_MS, LATENCY_P99_MS
+        );
+        measure(false);
+        measure(true);
+    }
+
+    private void measure(boolean http2) throws Exception {
+        ClientFactory.factory = null;
+        ClientFactory.HTTP2 = http2;
+
+        // Fresh server and sources, so connections are counted for this transport only
+        if (simulator != null) simulator.close();
+        simulator = new StatusPageSimulator()
+                .pages(PAGES)
+                .components(COMPONENTS)
+                .latency(LATENCY_MS, LATENCY_P99_MS)
+                .http2(true)
+                .start()
+        ;
+
+        Secret apiKey = Secret.fromString("simulated");
+        List<StatusPage.Source> sources = new ArrayList<>();
+        for (int i = 0; i < SOURCES; i++) {
+            sources.add(new StatusPage.Source("source-" + i, simulator.getPageName(i % PAGES), simulator.getUrl(), apiKey));
+        }
+        StatusPage.get().setSources(sources);
+
+        MetricsUpdater updater = MetricsUpdater.get();
+        // Warm-up
+        updater.doRun();
+
+        long[] cycles = new long[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            updater.doRun();
+            cycles[i] = System.nanoTime() - start;
+        }
+
+        Arrays.sort(cycles);
+        System.out.printf(
+                "%s: connections %d, requests %d, cycle p50 %d ms, p90 %d ms, max %d ms%n",
+                http2 ? "HTTP/2" : "HTTP/1.1", simulator.getConnections(), simulator.getRequests(),
+                millis(percentile(cycles, 50)), millis(percentile(cycles, 90)), millis(cycles[cycles.length - 1])
+        );
+    }
+}
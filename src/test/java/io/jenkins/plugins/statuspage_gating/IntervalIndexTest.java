@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jenkins.plugins.statuspage_gating;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IntervalIndexTest {
+
+    @Test
+    public void empty() {
+        IntervalIndex<String> index = IntervalIndex.empty();
+        assertTrue(index.isEmpty());
+        assertFalse(index.overlaps(Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(Collections.emptyList(), index.overlapping(Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void overlap() {
+        IntervalIndex<String> index = new IntervalIndex<>(Arrays.asList(
+                new IntervalIndex.Interval<>(50, 60, "c"),
+                new IntervalIndex.Interval<>(10, 100, "a"),
+                new IntervalIndex.Interval<>(20, 30, "b"),
+                new IntervalIndex.Interval<>(200, Long.MAX_VALUE, "open")
+        ));
+
+        assertFalse(index.overlaps(0, 10));
+        assertEquals(Collections.emptyList(), index.overlapping(0, 10));
+        assertEquals(Collections.singletonList("a"), index.overlapping(0, 11));
+        assertEquals(Arrays.asList("a", "b"), index.overlapping(25, 26));
+        assertEquals(Arrays.asList("a", "b", "c"), index.overlapping(0, 1000).subList(0, 3));
+        assertEquals(Collections.singletonList("a"), index.overlapping(60, 100));
+        assertFalse(index.overlaps(100, 200));
+        assertTrue(index.overlaps(100, 201));
+        assertEquals(Collections.singletonList("open"), index.overlapping(Long.MAX_VALUE - 1, Long.MAX_VALUE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalid() {
+        new IntervalIndex.Interval<>(2, 1, "");
+    }
+}
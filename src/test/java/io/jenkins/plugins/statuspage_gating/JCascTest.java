@@ -46,6 +46,7 @@ public class JCascTest {
     @Test @ConfiguredWithCode("JCascTest/jcasc.yaml")
     public void read() throws Exception {
         StatusPage statusPage = StatusPage.get();
+        assertEquals(15, statusPage.getMaxAge());
 
         List<StatusPage.Source> srcs = statusPage.getSources();
         StatusPage.Source upstream = srcs.get(0);
@@ -59,6 +60,11 @@ public class JCascTest {
         assertEquals("proxy", proxy.getLabel());
         assertEquals("proxypage", proxy.getPage());
         assertEquals("https://acme.com", proxy.getUrl());
+        assertEquals(StatusPage.Source.Mode.MANAGEMENT, proxy.getMode());
+
+        StatusPage.Source publicPage = srcs.get(2);
+        assertEquals("public", publicPage.getLabel());
+        assertEquals(StatusPage.Source.Mode.PUBLIC, publicPage.getMode());
 
         try (JenkinsRule.WebClient wc = j.createWebClient()) {
             URL url = new URL(wc.getContextPath() + "configuration-as-code/viewExport");
@@ -67,6 +73,7 @@ public class JCascTest {
             MatcherAssert.assertThat(content, containsString("statuspageGating:"));
             MatcherAssert.assertThat(content, containsString("label: \"upstream\""));
             MatcherAssert.assertThat(content, containsString("url: \"https://acme.com\""));
+            MatcherAssert.assertThat(content, containsString("PUBLIC"));
         }
     }
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jenkins.plugins.statuspage_gating;
+
+import hudson.util.Secret;
+import io.jenkins.plugins.gating.GatingMetrics;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Run {@link MetricsUpdater} against hundreds of sources served by {@link StatusPageSimulator} over HTTP.
+ *
+ * Not run as part of the regular build, run with <tt>mvn test -Dtest=LoadBenchmark</tt>. Tweak with
+ * <tt>-Dbenchmark.sources=300 -Dbenchmark.pages=50 -Dbenchmark.components=100 -Dbenchmark.latency=150
+ * -Dbenchmark.latencyP99=2000 -Dbenchmark.errorRate=0.01 -Dbenchmark.throttleRate=0.01 -Dbenchmark.rounds=10</tt>.
+ */
+public class LoadBenchmark {
+    private static final int SOURCES = Integer.getInteger("benchmark.sources", 300);
+    private static final int PAGES = Integer.getInteger("benchmark.pages", 50);
+    private static final int COMPONENTS = Integer.getInteger("benchmark.components", 100);
+    private static final long LATENCY_MS = Long.getLong("benchmark.latency", 150);
+    private static final long LATENCY_P99_MS = Long.getLong("benchmark.latencyP99", 2000);
+    private static final double ERROR_RATE = Double.parseDouble(System.getProperty("benchmark.errorRate", "0.01"));
+    private static final double THROTTLE_RATE = Double.parseDouble(System.getProperty("benchmark.throttleRate", "0.01"));
+    private static final int ROUNDS = Integer.getInteger("benchmark.rounds", 10);
+
+    @Rule public final JenkinsRule j = new JenkinsRule();
+
+    private StatusPageSimulator simulator;
+
+    @After
+    public void tearDown() {
+        if (simulator != null) simulator.close();
+    }
+
+    @Test
+    public void run() throws Exception {
+        simulator = new StatusPageSimulator()
+                .pages(PAGES)
+                .components(COMPONENTS)
+                .latency(LATENCY_MS, LATENCY_P99_MS)
+                .errorRate(ERROR_RATE)
+                .throttleRate(THROTTLE_RATE)
+                .start()
+        ;
+
+        ClientFactory.factory = null;
+        Secret apiKey = Secret.fromString("simulated");
+        List<StatusPage.Source> sources = new ArrayList<>();
+        for (int i = 0; i < SOURCES; i++) {
+            sources.add(new StatusPage.Source("source-" + i, simulator.getPageName(i % PAGES), simulator.getUrl(), apiKey));
+        }
+        StatusPage.get().setSources(sources);
+
+        MetricsUpdater updater = MetricsUpdater.get();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+        // Warm-up
+        updater.doRun();
+        threads.resetPeakThreadCount();
+
+        long[] cycles = new long[ROUNDS];
+        long maxHeap = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            updater.doRun();
+            cycles[i] = System.nanoTime() - start;
+            maxHeap = Math.max(maxHeap, memory.getHeapMemoryUsage().getUsed());
+        }
+
+        Arrays.sort(cycles);
+        System.out.printf(
+                "%d sources, %d pages x %d components, latency p50 %d ms / p99 %d ms, %.1f%% errors, %.1f%% throttled%n",
+                SOURCES, PAGES, COMPONENTS, LATENCY_MS, LATENCY_P99_MS, ERROR_RATE * 100, THROTTLE_RATE * 100
+        );
+        System.out.printf(
+                "cycle p50 %d ms, p90 %d ms, p99 %d ms, max %d ms%n",
+                millis(percentile(cycles, 50)), millis(percentile(cycles, 90)), millis(percentile(cycles, 99)), millis(cycles[cycles.length - 1])
+        );
+        System.out.printf(
+                "threads %d (peak %d), heap used max %d MB%n",
+                threads.getThreadCount(), threads.getPeakThreadCount(), maxHeap / 1024 / 1024
+        );
+        System.out.printf(
+                "requests %d, 304 %d, 500 %d, 429 %d, 401 %d, sources reported %d, in error %d%n",
+                simulator.getRequests(), simulator.getNotModified(), simulator.getErrors(), simulator.getThrottled(),
+                simulator.getUnauthorized(), GatingMetrics.get().getMetrics().size(), GatingMetrics.get().getErrors().size()
+        );
+    }
+
+    /*package*/ static long percentile(long[] sorted, int percentile) {
+        int idx = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(idx, sorted.length - 1))];
+    }
+
+    /*package*/ static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jenkins.plugins.statuspage_gating;
+
+import hudson.util.Secret;
+import io.jenkins.plugins.gating.GatingMetrics;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import static io.jenkins.plugins.statuspage_gating.LoadBenchmark.millis;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compare throughput of polling strategies for hundreds of sources served by {@link StatusPageSimulator} over HTTP.
+ *
+ * Not run as part of the regular build, run with <tt>mvn test -Dtest=PollingBenchmark</tt>, ideally on JDK 21+ to
+ * include virtual threads. Tweak with <tt>-Dbenchmark.sources=500 -Dbenchmark.components=50
+ * -Dbenchmark.latency=100 -Dbenchmark.rounds=5</tt>.
+ */
+public class PollingBenchmark {
+    private static final int SOURCES = Integer.getInteger("benchmark.sources", 500);
+    private static final int PAGES = 50;
+    private static final int COMPONENTS = Integer.getInteger("benchmark.components", 50);
+    private static final long LATENCY_MS = Long.getLong("benchmark.latency", 100);
+    private static final int ROUNDS = Integer.getInteger("benchmark.rounds", 5);
+
+    @Rule public final JenkinsRule j = new JenkinsRule();
+
+    private StatusPageSimulator simulator;
+
+    @After
+    public void tearDown() {
+        if (simulator != null) simulator.close();
+    }
+
+    @Test
+    public void compare() throws Exception {
+        simulator = new StatusPageSimulator()
+                .pages(PAGES)
+                .components(COMPONENTS)
+                .latency(LATENCY_MS, LATENCY_MS)
+                .start()
+        ;
+
+        ClientFactory.factory = null;
+        Secret apiKey = Secret.fromString("simulated");
+        List<StatusPage.Source> sources = new ArrayList<>();
+        for (int i = 0; i < SOURCES; i++) {
+            sources.add(new StatusPage.Source("source-" + i, simulator.getPageName(i % PAGES), simulator.getUrl(), apiKey));
+        }
+        StatusPage.get().setSources(sources);
+
+        report("serial", PollingExecutor.create(PollingExecutor.Strategy.PLATFORM, 1));
+        report("platform(" + PollingExecutor.POOL_SIZE + ")", PollingExecutor.create(PollingExecutor.Strategy.PLATFORM, PollingExecutor.POOL_SIZE));
+        report("platform(50)", PollingExecutor.create(PollingExecutor.Strategy.PLATFORM, 50));
+        if (PollingExecutor.isVirtualThreadSupported()) {
+            report("virtual", PollingExecutor.create(PollingExecutor.Strategy.VIRTUAL, PollingExecutor.POOL_SIZE));
+        } else {
+            System.out.println("virtual: not supported by " + System.getProperty("java.version"));
+        }
+    }
+
+    private void report(String name, ExecutorService executor) throws Exception {
+        MetricsUpdater updater = MetricsUpdater.get();
+        long total = 0;
+        long requests;
+        try {
+            updater.setExecutor(executor);
+
+            // Warm-up
+            updater.doRun();
+
+            requests = simulator.getRequests();
+            for (int i = 0; i < ROUNDS; i++) {
+                long start = System.nanoTime();
+                updater.doRun();
+                total += System.nanoTime() - start;
+                assertEquals(SOURCES, GatingMetrics.get().getMetrics().size());
+            }
+            requests = simulator.getRequests() - requests;
+        } finally {
+            updater.setExecutor(null);
+            executor.shutdownNow();
+        }
+
+        double cycleMs = millis(total) / (double) ROUNDS;
+        System.out.printf(
+                "%-15s cycle %8.1f ms, %8.1f sources/s, %d requests per cycle%n",
+                name, cycleMs, SOURCES / cycleMs * 1000, requests / ROUNDS
+        );
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jenkins.plugins.statuspage_gating;
+
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PollingExecutorTest {
+
+    @Test
+    public void platform() throws Exception {
+        ExecutorService executor = PollingExecutor.create(PollingExecutor.Strategy.PLATFORM, 3);
+        try {
+            assertTrue(executor instanceof ThreadPoolExecutor);
+            assertEquals(3, ((ThreadPoolExecutor) executor).getMaximumPoolSize());
+            assertNotEquals(Thread.currentThread(), executor.submit(Thread::currentThread).get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void auto() throws Exception {
+        ExecutorService executor = PollingExecutor.create(PollingExecutor.Strategy.AUTO, 3);
+        try {
+            assertEquals(PollingExecutor.isVirtualThreadSupported(), !(executor instanceof ThreadPoolExecutor));
+            assertEquals("done", executor.submit(() -> "done").get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jenkins.plugins.statuspage_gating;
+
+import hudson.ExtensionList;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestExtension;
+
+import javax.annotation.Nonnull;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class PrometheusEndpointTest {
+
+    @Rule public final JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void expose() throws Exception {
+        SharedFixtureClient.declareSources();
+        SharedFixtureClient.reportMetrics();
+        MetricsUpdater.get().doRun();
+
+        PrometheusEndpoint endpoint = ExtensionList.lookupSingleton(PrometheusEndpoint.class);
+        byte[] text = endpoint.getText();
+        String content = new String(text, StandardCharsets.UTF_8);
+        assertThat(content, containsString("statuspage_resource_status{source=\"one\",resource=\"one/Component #1\",category=\"UP\"} 1\n"));
+        assertThat(content, containsString("statuspage_resource_status{source=\"one\",resource=\"one/Component #1\",category=\"DOWN\"} 0\n"));
+        assertThat(content, containsString("statuspage_resource_status{source=\"Second One\",resource=\"Second One/Squirrel\",category=\"DOWN\"} 1\n"));
+        assertThat(content, containsString("statuspage_source_polls_total{source=\"one\"} 1\n"));
+        assertThat(content, containsString("statuspage_source_poll_errors_total{source=\"one\"} 0\n"));
+        assertThat(content, containsString("# TYPE statuspage_source_last_success_timestamp_seconds gauge\n"));
+
+        // Not rendered again until something is published
+        assertSame(text, endpoint.getText());
+        MetricsUpdater.get().doRun();
+        assertNotSame(text, endpoint.getText());
+        assertThat(new String(endpoint.getText(), StandardCharsets.UTF_8), containsString("statuspage_source_polls_total{source=\"one\"} 2\n"));
+
+        try (JenkinsRule.WebClient wc = j.createWebClient()) {
+            String served = wc.goTo("statuspage-gating/prometheus", "text/plain").getWebResponse().getContentAsString();
+            assertThat(served, containsString("statuspage_source_polls_total{source=\"Second One\"} 2\n"));
+        }
+    }
+
+    @Test
+    public void listenerStatistics() throws Exception {
+        SharedFixtureClient.declareSources();
+        SharedFixtureClient.reportMetrics();
+        MetricsUpdater.get().doRun();
+
+        // All resources appeared
+        PrometheusEndpoint endpoint = ExtensionList.lookupSingleton(PrometheusEndpoint.class);
+        String l = "{listener=\"" + Recording.class.getName() + "\"} ";
+        String delivered = "statuspage_listener_changes_delivered_total" + l + "4\n";
+        for (int i = 0; i < 100 && !endpoint.renderLive().contains(delivered); i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(4, ExtensionList.lookupSingleton(Recording.class).changes.size());
+
+        String text = endpoint.renderLive();
+        assertThat(text, containsString(delivered));
+        assertThat(text, containsString("statuspage_listener_changes_dropped_total" + l + "0\n"));
+        assertThat(text, containsString("statuspage_listener_queue_depth" + l + "0\n"));
+        assertThat(text, containsString("# TYPE statuspage_concurrency_limit gauge\n"));
+    }
+
+    @TestExtension("listenerStatistics")
+    public static final class Recording extends SnapshotListener {
+        private final List<ResourceChange> changes = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onChange(@Nonnull ResourceChange change) {
+            changes.add(change);
+        }
+    }
+}
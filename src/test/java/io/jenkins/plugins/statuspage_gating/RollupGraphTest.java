@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jenkins.plugins.statuspage_gating;
+
+import io.jenkins.plugins.gating.ResourceStatus;
+import io.jenkins.plugins.statuspage_gating.api.Component;
+import io.jenkins.plugins.statuspage_gating.api.ComponentGroup;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static io.jenkins.plugins.gating.ResourceStatus.Category.DEGRADED;
+import static io.jenkins.plugins.gating.ResourceStatus.Category.DOWN;
+import static io.jenkins.plugins.gating.ResourceStatus.Category.UNKNOWN;
+import static io.jenkins.plugins.gating.ResourceStatus.Category.UP;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class RollupGraphTest {
+
+    private static final List<ComponentGroup> GROUPS = Collections.singletonList(
+            new ComponentGroup("g1", "Databases", null)
+    );
+
+    @Test
+    public void rollup() {
+        RollupGraph graph = RollupGraph.parse(
+                "Platform: Storage, Web\n" +
+                "Storage: Databases, nfs\n" +
+                "Web: frontend\n"
+        );
+
+        Map<String, ResourceStatus.Category> statuses = graph.update(Arrays.asList(
+                component("db-1", Component.Status.OPERATIONAL, "g1"),
+                component("db-2", Component.Status.OPERATIONAL, "g1"),
+                component("nfs", Component.Status.OPERATIONAL, null),
+                component("frontend", Component.Status.OPERATIONAL, null)
+        ), GROUPS);
+        assertEquals(UP, statuses.get("Platform"));
+        assertEquals(UP, statuses.get("Storage"));
+        assertEquals(UP, statuses.get("Web"));
+
+        statuses = graph.update(Arrays.asList(
+                component("db-1", Component.Status.OPERATIONAL, "g1"),
+                component("db-2", Component.Status.PARTIAL_OUTAGE, "g1"),
+                component("nfs", Component.Status.OPERATIONAL, null),
+                component("frontend", Component.Status.OPERATIONAL, null)
+        ), GROUPS);
+        assertEquals(DEGRADED, statuses.get("Platform"));
+        assertEquals(DEGRADED, statuses.get("Storage"));
+        assertEquals(UP, statuses.get("Web"));
+
+        statuses = graph.update(Arrays.asList(
+                component("db-1", Component.Status.OPERATIONAL, "g1"),
+                component("db-2", Component.Status.OPERATIONAL, "g1"),
+                component("nfs", Component.Status.OPERATIONAL, null),
+                component("frontend", Component.Status.MAJOR_OUTAGE, null)
+        ), GROUPS);
+        assertEquals(DOWN, statuses.get("Platform"));
+        assertEquals(UP, statuses.get("Storage"));
+        assertEquals(DOWN, statuses.get("Web"));
+
+        // Missing child is unknown, regrouping is picked up
+        statuses = graph.update(Arrays.asList(
+                component("db-1", Component.Status.OPERATIONAL, "g1"),
+                component("db-2", Component.Status.MAJOR_OUTAGE, null),
+                component("frontend", Component.Status.OPERATIONAL, null)
+        ), GROUPS);
+        assertEquals(UNKNOWN, statuses.get("Platform"));
+        assertEquals(UNKNOWN, statuses.get("Storage"));
+        assertEquals(UP, statuses.get("Web"));
+    }
+
+    @Test
+    public void parse() {
+        assertNull(RollupGraph.parse(null));
+        assertNull(RollupGraph.parse("\n  \n"));
+
+        invalid("no colon");
+        invalid(": child");
+        invalid("Parent:");
+        invalid("A: B\nB: C\nC: A");
+        invalid("A: A");
+    }
+
+    private static void invalid(String rules) {
+        try {
+            RollupGraph.parse(rules);
+            fail(rules);
+        } catch (IllegalArgumentException ex) {
+            // Expected
+        }
+    }
+
+    private static Component component(String name, Component.Status status, String groupId) {
+        return new Component(name, name, "", status, groupId);
+    }
+}
@@ -25,8 +25,10 @@ import com.google.common.collect.ImmutableMap;
 import hudson.util.Secret;
 import io.jenkins.plugins.gating.MetricsSnapshot;
 import io.jenkins.plugins.statuspage_gating.api.Component;
+import io.jenkins.plugins.statuspage_gating.api.ComponentFilter;
 import io.jenkins.plugins.statuspage_gating.api.Page;
 import io.jenkins.plugins.statuspage_gating.api.StatusPageIo;
+import io.jenkins.plugins.statuspage_gating.api.Summary;
 
 import javax.annotation.Nonnull;
 import java.util.ArrayList;
@@ -35,6 +37,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * Fake metrics for testing purposes.
@@ -86,8 +89,16 @@ class SharedFixtureClient extends StatusPageIo {
         return new ArrayList<>(map.keySet());
     }
 
-    @Override public @Nonnull List<Component> listComponents(Page page) {
-        return map.get(page);
+    @Override public @Nonnull List<Component> listComponents(Page page, @Nonnull ComponentFilter filter) {
+        return map.get(page).stream()
+                .filter(c -> filter.accepts(c.getId(), c.getName(), null, null))
+                .collect(Collectors.toList())
+        ;
+    }
+
+    @Override public @Nonnull Summary getSummary(@Nonnull ComponentFilter filter) {
+        Page page = map.keySet().stream().filter(p -> "twoName".equals(p.getName())).findFirst().get();
+        return new Summary(page, listComponents(page, filter), Collections.emptyList(), null);
     }
 
     public static final class InjectingFactory extends ClientFactory {
@@ -101,5 +112,15 @@ class SharedFixtureClient extends StatusPageIo {
         public StatusPageIo create(String rootUrl, Secret apiKey) {
             return spio;
         }
+
+        @Override
+        public StatusPageIo create(String rootUrl, Secret apiKey, int concurrency) {
+            return spio;
+        }
+
+        @Override
+        public StatusPageIo create(String rootUrl, Secret apiKey, int concurrency, boolean hedging) {
+            return spio;
+        }
     }
 }
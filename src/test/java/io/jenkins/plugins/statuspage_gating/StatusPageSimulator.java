@@ -0,0 +1,404 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jenkins.plugins.statuspage_gating;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.jenkins.plugins.statuspage_gating.api.Component;
+import org.eclipse.jetty.http2.server.HTTP2CServerConnectionFactory;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local HTTP server imitating the StatusPage management API.
+ *
+ * Serves <tt>pages</tt>, <tt>components</tt>, <tt>component-groups</tt> and (empty) <tt>incidents</tt> endpoints
+ * for a generated set of pages. Pages are named <tt>Page N</tt>, their components are named <tt>component-N</tt>
+ * and are organized into groups of 10. Response latency is drawn from a log-normal distribution given its median and
+ * 99th percentile, and a fraction of requests can be answered with 500 or 429.
+ *
+ * Response bodies are rendered upfront, so the simulator itself does not distort the measurements.
+ *
+ * Served by the JDK HTTP server speaking HTTP/1.1, or by Jetty speaking both HTTP/1.1 and cleartext HTTP/2.
+ */
+/*package*/ final class StatusPageSimulator implements Closeable {
+    private static final int GROUP_SIZE = 10;
+    private static final double Z_99 = 2.326;
+
+    private int pageCount = 1;
+    private int componentCount = 10;
+    private long medianLatency = 0;
+    private long p99Latency = 0;
+    private double errorRate = 0;
+    private double throttleRate = 0;
+    private boolean etags = true;
+    private boolean http2 = false;
+
+    private final Map<String, byte[]> bodies = new HashMap<>();
+    private final Map<String, String> bodyTags = new HashMap<>();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong unauthorized = new AtomicLong();
+    private final Set<String> connections = ConcurrentHashMap.newKeySet();
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private Server jetty;
+
+    public StatusPageSimulator pages(int pageCount) {
+        this.pageCount = pageCount;
+        return this;
+    }
+
+    public StatusPageSimulator components(int componentCount) {
+        this.componentCount = componentCount;
+        return this;
+    }
+
+    /**
+     * @param median Median response latency in milliseconds.
+     * @param p99 99th percentile of response latency in milliseconds.
+     */
+    public StatusPageSimulator latency(long median, long p99) {
+        if (p99 < median) throw new IllegalArgumentException("p99 latency is lower than median: " + p99 + " < " + median);
+        this.medianLatency = median;
+        this.p99Latency = p99;
+        return this;
+    }
+
+    /**
+     * Fraction of requests failing with 500.
+     */
+    public StatusPageSimulator errorRate(double errorRate) {
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    /**
+     * Fraction of requests rejected with 429.
+     */
+    public StatusPageSimulator throttleRate(double throttleRate) {
+        this.throttleRate = throttleRate;
+        return this;
+    }
+
+    /**
+     * Send <tt>ETag</tt> headers and answer matching <tt>If-None-Match</tt> with 304.
+     */
+    public StatusPageSimulator etags(boolean etags) {
+        this.etags = etags;
+        return this;
+    }
+
+    /**
+     * Serve HTTP/2 next to HTTP/1.1.
+     */
+    public StatusPageSimulator http2(boolean http2) {
+        this.http2 = http2;
+        return this;
+    }
+
+    public @Nonnull StatusPageSimulator start() throws IOException {
+        render();
+
+        if (http2) {
+            startJetty();
+            return this;
+        }
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        // Latency is simulated by sleeping, so serve every request on its own thread
+        executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "StatusPage simulator");
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(executor);
+        server.createContext("/v1/", this::handle);
+        server.start();
+        return this;
+    }
+
+    private void startJetty() throws IOException {
+        // Latency is simulated by sleeping, so there needs to be a thread per request in flight
+        jetty = new Server(new QueuedThreadPool(1024));
+        HttpConfiguration config = new HttpConfiguration();
+        ServerConnector connector = new ServerConnector(jetty, new HttpConnectionFactory(config), new HTTP2CServerConnectionFactory(config));
+        connector.setHost(InetAddress.getLoopbackAddress().getHostAddress());
+        connector.setPort(0);
+        jetty.addConnector(connector);
+        jetty.setHandler(new AbstractHandler() {
+            @Override
+            public void handle(String target, Request base, HttpServletRequest request, HttpServletResponse response) throws IOException {
+                base.setHandled(true);
+                connections.add(request.getRemoteAddr() + ":" + request.getRemotePort());
+                Reply reply = reply(request.getRequestURI(), request.getHeader("Authorization"), request.getHeader("If-None-Match"));
+
+                response.setStatus(reply.code);
+                reply.headers.forEach(response::setHeader);
+                if (reply.body != null) {
+                    response.setContentLength(reply.body.length);
+                    try (OutputStream os = response.getOutputStream()) {
+                        os.write(reply.body);
+                    }
+                }
+            }
+        });
+        try {
+            jetty.start();
+        } catch (Exception ex) {
+            throw new IOException("Failed starting Jetty", ex);
+        }
+    }
+
+    /**
+     * Root URL to configure the sources with.
+     */
+    public @Nonnull String getUrl() {
+        if (jetty != null) {
+            ServerConnector connector = (ServerConnector) jetty.getConnectors()[0];
+            return "http://" + connector.getHost() + ":" + connector.getLocalPort() + "/v1/";
+        }
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/v1/";
+    }
+
+    public @Nonnull String getPageName(int page) {
+        return "Page " + page;
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getNotModified() {
+        return notModified.get();
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+
+    public long getThrottled() {
+        return throttled.get();
+    }
+
+    public long getUnauthorized() {
+        return unauthorized.get();
+    }
+
+    /**
+     * Number of distinct client connections served.
+     */
+    public int getConnections() {
+        return connections.size();
+    }
+
+    @Override
+    public void close() {
+        if (server != null) server.stop(0);
+        if (executor != null) executor.shutdownNow();
+        if (jetty != null) {
+            try {
+                jetty.stop();
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+
+    private void render() {
+        Random random = new Random(42);
+        Component.Status[] statuses = Component.Status.values();
+
+        StringBuilder pages = new StringBuilder("[");
+        for (int p = 0; p < pageCount; p++) {
+            String pageId = "page" + p;
+            if (p > 0) pages.append(',');
+            pages.append("{\"id\":\"").append(pageId).append("\",\"name\":\"").append(getPageName(p)).append("\"}");
+
+            StringBuilder groups = new StringBuilder("[");
+            StringBuilder components = new StringBuilder("[");
+            for (int c = 0; c < componentCount; c++) {
+                String groupId = pageId + "group" + c / GROUP_SIZE;
+                if (c % GROUP_SIZE == 0) {
+                    if (c > 0) {
+                        groups.append(',');
+                        components.append(',');
+                    }
+                    String group = "{\"id\":\"" + groupId + "\",\"name\":\"group-" + c / GROUP_SIZE + "\"";
+                    groups.append(group).append('}');
+                    components.append(group).append(",\"group\":true,\"status\":\"operational\"}");
+                }
+
+                // Mostly operational, as real pages are
+                Component.Status status = random.nextInt(10) == 0
+                        ? statuses[random.nextInt(statuses.length)]
+                        : Component.Status.OPERATIONAL
+                ;
+                components.append(",{\"id\":\"").append(pageId).append("c").append(c)
+                        .append("\",\"page_id\":\"").append(pageId)
+                        .append("\",\"group_id\":\"").append(groupId)
+                        .append("\",\"group\":false,\"name\":\"component-").append(c)
+                        .append("\",\"description\":\"Simulated component ").append(c)
+                        .append("\",\"status\":\"").append(status.name().toLowerCase(Locale.ENGLISH))
+                        .append("\",\"position\":").append(c)
+                        .append(",\"showcase\":false,\"only_show_if_degraded\":false}")
+                ;
+            }
+            groups.append(']');
+            components.append(']');
+
+            put("/v1/pages/" + pageId + "/components", components.toString());
+            put("/v1/pages/" + pageId + "/component-groups", groups.toString());
+            for (String kind : new String[] {"unresolved", "upcoming", "active_maintenance"}) {
+                put("/v1/pages/" + pageId + "/incidents/" + kind, "[]");
+            }
+        }
+        pages.append(']');
+        put("/v1/pages", pages.toString());
+    }
+
+    private void put(String path, String body) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        bodies.put(path, bytes);
+        bodyTags.put(path, "\"" + Integer.toHexString(Arrays.hashCode(bytes)) + "\"");
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            connections.add(exchange.getRemoteAddress().toString());
+            Reply reply = reply(
+                    exchange.getRequestURI().getPath(),
+                    exchange.getRequestHeaders().getFirst("Authorization"),
+                    exchange.getRequestHeaders().getFirst("If-None-Match")
+            );
+
+            reply.headers.forEach(exchange.getResponseHeaders()::set);
+            if (reply.body == null) {
+                exchange.sendResponseHeaders(reply.code, -1);
+                return;
+            }
+
+            exchange.sendResponseHeaders(reply.code, reply.body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(reply.body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private @Nonnull Reply reply(String path, @CheckForNull String authorization, @CheckForNull String ifNoneMatch) {
+        requests.incrementAndGet();
+        sleep();
+
+        Reply reply = new Reply();
+        if (authorization == null) {
+            unauthorized.incrementAndGet();
+            reply.code = 401;
+            return reply;
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextDouble() < throttleRate) {
+            throttled.incrementAndGet();
+            reply.headers.put("Retry-After", "1");
+            reply.code = 429;
+            return reply;
+        }
+        if (random.nextDouble() < errorRate) {
+            errors.incrementAndGet();
+            reply.code = 500;
+            return reply;
+        }
+
+        byte[] body = bodies.get(path);
+        if (body == null) {
+            reply.code = 404;
+            return reply;
+        }
+
+        if (etags) {
+            String tag = bodyTags.get(path);
+            reply.headers.put("ETag", tag);
+            if (tag.equals(ifNoneMatch)) {
+                notModified.incrementAndGet();
+                reply.code = 304;
+                return reply;
+            }
+        }
+
+        reply.headers.put("Content-Type", "application/json; charset=utf-8");
+        reply.code = 200;
+        reply.body = body;
+        return reply;
+    }
+
+    private void sleep() {
+        if (p99Latency == 0) return;
+
+        // Log-normal with given median and 99th percentile
+        double sigma = medianLatency == 0 ? 0 : Math.log((double) p99Latency / medianLatency) / Z_99;
+        long latency = (long) (medianLatency * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+        try {
+            Thread.sleep(latency);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Reply {
+        private int code;
+        private final Map<String, String> headers = new HashMap<>();
+        private @CheckForNull byte[] body;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jenkins.plugins.statuspage_gating;
+
+import hudson.model.Result;
+import io.jenkins.plugins.statuspage_gating.api.Component;
+import io.jenkins.plugins.statuspage_gating.api.ComponentFilter;
+import io.jenkins.plugins.statuspage_gating.api.Page;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class StatusPageStatusStepTest {
+
+    @Rule public final JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void readStatus() throws Exception {
+        SharedFixtureClient.declareSources();
+        AtomicInteger reads = new AtomicInteger();
+        ClientFactory.factory = new SharedFixtureClient.InjectingFactory(new SharedFixtureClient() {
+            @Override public @Nonnull List<Component> listComponents(Page page, @Nonnull ComponentFilter filter) {
+                reads.incrementAndGet();
+                return super.listComponents(page, filter);
+            }
+        });
+        MetricsUpdater.get().doRun();
+        assertEquals(2, reads.get());
+
+        WorkflowJob job = j.createProject(WorkflowJob.class);
+        job.setDefinition(new CpsFlowDefinition(
+                "echo 'one: ' + statuspageStatus('one/Component #1')\n" +
+                "echo 'squirrel: ' + statuspageStatus(resource: 'Second One/Squirrel', maxAge: 3600)\n",
+                true
+        ));
+        WorkflowRun run = j.buildAndAssertSuccess(job);
+        j.assertLogContains("one: OPERATIONAL", run);
+        j.assertLogContains("squirrel: MAJOR_OUTAGE", run);
+        // Served from the snapshot
+        assertEquals(2, reads.get());
+
+        // Refreshed when older than max age
+        Thread.sleep(1100);
+        job.setDefinition(new CpsFlowDefinition("echo 'squirrel: ' + statuspageStatus(resource: 'Second One/Squirrel', maxAge: 1)", true));
+        j.assertLogContains("squirrel: MAJOR_OUTAGE", j.buildAndAssertSuccess(job));
+        assertEquals(3, reads.get());
+
+        job.setDefinition(new CpsFlowDefinition("statuspageStatus('one/No such component')", true));
+        j.assertLogContains("No StatusPage resource 'one/No such component' reported", j.assertBuildStatus(Result.FAILURE, job.scheduleBuild2(0)));
+    }
+}
@@ -30,6 +30,7 @@ import io.jenkins.plugins.statuspage_gating.api.StatusPageIo;
 import org.junit.Rule;
 import org.junit.Test;
 import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.recipes.LocalData;
 import org.mockito.ArgumentCaptor;
 
 import java.util.Arrays;
@@ -59,16 +60,20 @@ public class UiGlobalConfigTest {
     @Test
     public void configRoundtripMultiple() throws Exception {
         StatusPage statusPage = StatusPage.get();
+        Source publicSource = new Source("plabel", "ppage", "https://status.acme.com", null);
+        publicSource.setMode(Source.Mode.PUBLIC);
+        publicSource.setOnDemand(true);
         List<Source> expectedSources = Arrays.asList(
                 new Source("flabel", "fpage", null, null),
-                new Source("blabel", "bpage1", "https://bar.com", Secret.fromString(BAR_PWD))
+                new Source("blabel", "bpage1", "https://bar.com", Secret.fromString(BAR_PWD)),
+                publicSource
         );
 
         statusPage.setSources(expectedSources);
         j.configRoundtrip();
         assertEquals(expectedSources, statusPage.getSources());
         assertNotSame(expectedSources, statusPage.getSources());
-        assertEquals(ImmutableSet.of("flabel", "blabel"), statusPage.getLabels());
+        assertEquals(ImmutableSet.of("flabel", "blabel", "plabel"), statusPage.getLabels());
 
         try (JenkinsRule.WebClient wc = j.createWebClient()) {
             HtmlPage configure = wc.goTo("configure");
@@ -152,7 +157,7 @@ public class UiGlobalConfigTest {
         when(ClientFactory.factory.create(any(String.class), any(Secret.class))).thenReturn(SharedFixtureClient.SHARED_FIXTURE_CLIENT);
 
         // Values are correctly passed to client
-        StatusPage.get().doTestConnection("url", "apiKey", "page");
+        StatusPage.get().doTestConnection("url", "apiKey", "page", null);
         verify(ClientFactory.factory).create(urlCaptor.capture(), apiKeyCaptor.capture());
         assertEquals("url", urlCaptor.getValue());
         assertEquals("apiKey", apiKeyCaptor.getValue().getPlainText());
@@ -160,18 +165,44 @@ public class UiGlobalConfigTest {
         // Valid states
         SharedFixtureClient.reportMetrics();
 
-        FormValidation fv = StatusPage.get().doTestConnection("url", "apiKey", "three");
+        FormValidation fv = StatusPage.get().doTestConnection("url", "apiKey", "three", null);
         assertThat(fv.getMessage(), containsString("Configured page three does not exist in: "));
 
-        fv = StatusPage.get().doTestConnection("url", "apiKey", "twoName");
+        fv = StatusPage.get().doTestConnection("url", "apiKey", "twoName", null);
         assertEquals(FormValidation.Kind.OK, fv.kind);
 
-        fv = StatusPage.get().doTestConnection("url", "", "twoName");
+        fv = StatusPage.get().doTestConnection("url", "", "twoName", "MANAGEMENT");
         assertEquals(FormValidation.Kind.OK, fv.kind);
         assertThat(fv.getMessage(), containsString(StatusPage.TEXT_NO_API_KEY));
 
-        fv = StatusPage.get().doTestConnection("url", "apiKey", "");
+        fv = StatusPage.get().doTestConnection("url", "apiKey", "", null);
         assertEquals(FormValidation.Kind.ERROR, fv.kind);
         assertThat(fv.getMessage(), containsString(StatusPage.TEXT_NO_PAGE));
+
+        // Public summary only ever reports the hosted page
+        fv = StatusPage.get().doTestConnection("url", "", "twoName", "PUBLIC");
+        assertEquals(FormValidation.Kind.OK, fv.kind);
+        assertThat(fv.getMessage(), containsString("Existing pages: twoName"));
+
+        fv = StatusPage.get().doTestConnection("url", "", "oneName", "PUBLIC");
+        assertThat(fv.getMessage(), containsString("Configured page oneName does not exist in: twoName"));
+
+        fv = StatusPage.get().doTestConnection("url", "apiKey", "two*", "DISCOVER");
+        assertEquals(FormValidation.Kind.OK, fv.kind);
+        assertThat(fv.getMessage(), containsString("Matching pages: twoName"));
+
+        fv = StatusPage.get().doTestConnection("url", "apiKey", "three*", "DISCOVER");
+        assertEquals(FormValidation.Kind.ERROR, fv.kind);
+    }
+
+    @Test
+    @LocalData
+    public void loadConfigOfOlderVersion() {
+        List<Source> sources = StatusPage.get().getSources();
+        assertEquals(1, sources.size());
+        Source source = sources.get(0);
+        assertEquals("old", source.getLabel());
+        assertEquals(Source.Mode.MANAGEMENT, source.getMode());
+        assertEquals(Source.DEFAULT_MAX_RESPONSE_SIZE, source.getMaxResponseSize());
     }
 }
@@ -23,8 +23,23 @@ package io.jenkins.plugins.statuspage_gating;
 
 import com.google.common.collect.ImmutableSet;
 import hudson.ExtensionList;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Label;
+import hudson.model.Queue;
+import hudson.model.queue.CauseOfBlockage;
+import hudson.model.queue.QueueTaskDispatcher;
+import hudson.model.queue.QueueTaskFuture;
+import hudson.slaves.DumbSlave;
+import hudson.util.FormValidation;
+import hudson.util.Secret;
 import io.jenkins.plugins.gating.GatingMetrics;
 import io.jenkins.plugins.gating.MetricsSnapshot;
+import io.jenkins.plugins.gating.ResourceStatus;
+import io.jenkins.plugins.statuspage_gating.api.Component;
+import io.jenkins.plugins.statuspage_gating.api.ComponentFilter;
+import io.jenkins.plugins.statuspage_gating.api.Http2Transport;
+import io.jenkins.plugins.statuspage_gating.api.Incident;
 import io.jenkins.plugins.statuspage_gating.api.Page;
 import io.jenkins.plugins.statuspage_gating.api.StatusPageIo;
 import org.hamcrest.MatcherAssert;
@@ -32,21 +47,36 @@ import org.hamcrest.Matchers;
 import org.junit.Rule;
 import org.junit.Test;
 import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestExtension;
 
 import javax.annotation.Nonnull;
 import java.io.IOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static io.jenkins.plugins.statuspage_gating.ClientFactory.factory;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
 
 public class UpdateTest {
 
     @Rule public final JenkinsRule j = new JenkinsRule();
 
     @Test
-    public void update() {
+    public void update() throws Exception {
         SharedFixtureClient.declareSources();
         SharedFixtureClient.reportMetrics();
 
@@ -66,7 +96,172 @@ public class UpdateTest {
     }
 
     @Test
-    public void failUpdate() {
+    public void updatePublic() throws Exception {
+        StatusPage.Source source = new StatusPage.Source("Second One", "twoName", "https://status.acme.com", null);
+        source.setMode(StatusPage.Source.Mode.PUBLIC);
+        StatusPage.get().setSources(Collections.singletonList(source));
+        SharedFixtureClient.reportMetrics();
+
+        MetricsUpdater ma = ExtensionList.lookupSingleton(MetricsUpdater.class);
+        ma.doRun();
+
+        Map<String, MetricsSnapshot> metrics = GatingMetrics.get().getMetrics();
+        assertEquals(1, metrics.size());
+        assertEquals(SharedFixtureClient.getReportedMetrics().get("Second One"), metrics.get("Second One").getStatuses());
+    }
+
+    @Test
+    public void updateFiltered() throws Exception {
+        SharedFixtureClient.declareSources();
+        SharedFixtureClient.reportMetrics();
+        StatusPage.get().getSources().get(1).setExcludes("Squirrel\nid:lizard");
+
+        MetricsUpdater ma = ExtensionList.lookupSingleton(MetricsUpdater.class);
+        ma.doRun();
+
+        Map<String, MetricsSnapshot.Resource> statuses = GatingMetrics.get().getMetrics().get("Second One").getStatuses();
+        assertEquals(ImmutableSet.of("Second One/down-component"), statuses.keySet());
+    }
+
+    @Test
+    public void updateDiscovered() throws Exception {
+        StatusPage.Source source = new StatusPage.Source("all", "*Name", null, null);
+        source.setMode(StatusPage.Source.Mode.DISCOVER);
+        source.setExcludes("Squirrel");
+        StatusPage.get().setSources(Collections.singletonList(source));
+        SharedFixtureClient.reportMetrics();
+
+        MetricsUpdater ma = ExtensionList.lookupSingleton(MetricsUpdater.class);
+        ma.doRun();
+
+        Map<String, MetricsSnapshot> metrics = GatingMetrics.get().getMetrics();
+        assertEquals(ImmutableSet.of("all"), metrics.keySet());
+        assertEquals(ImmutableSet.of(
+                "all/oneName/Component #1", "all/twoName/down-component", "all/twoName/some-other-component"
+        ), metrics.get("all").getStatuses().keySet());
+        assertEquals(Component.Status.MAJOR_OUTAGE, metrics.get("all").getStatuses().get("all/twoName/down-component").getStatus());
+    }
+
+    @Test
+    public void maintenanceLookahead() throws Exception {
+        SharedFixtureClient.declareSources();
+        StatusPage.Source one = StatusPage.get().getSources().get(0);
+        one.setMaintenanceLookahead(60);
+
+        Instant start = Instant.now().plus(30, ChronoUnit.MINUTES);
+        Instant end = start.plus(2, ChronoUnit.HOURS);
+        Incident maintenance = new Incident(
+                "mid", "Upgrade", "scheduled", null, Instant.now().toString(), start.toString(), end.toString(),
+                Collections.singletonList(new Component("deadbeef", "Component #1", "Some desc", Component.Status.OPERATIONAL))
+        );
+        factory = new SharedFixtureClient.InjectingFactory(new SharedFixtureClient() {
+            @Override public @Nonnull List<Incident> listOpenIncidents(Page page) {
+                return Collections.singletonList(maintenance);
+            }
+        });
+
+        MetricsUpdater ma = ExtensionList.lookupSingleton(MetricsUpdater.class);
+        ma.doRun();
+
+        MetricsSnapshot.Resource resource = GatingMetrics.get().getMetrics().get("one").getStatuses().get("one/Component #1");
+        assertEquals(Component.Status.UNDER_MAINTENANCE, resource.getStatus());
+        MatcherAssert.assertThat(resource.getDescription(), Matchers.containsString("Scheduled maintenance 'Upgrade'"));
+
+        long now = System.currentTimeMillis();
+        assertTrue(ma.isMaintenanceScheduled("one/Component #1", now, end.toEpochMilli()));
+        assertFalse(ma.isMaintenanceScheduled("one/Component #1", now, start.toEpochMilli() - 1000));
+        assertFalse(ma.isMaintenanceScheduled("Second One/Squirrel", now, end.toEpochMilli()));
+
+        // Not tracked without lookahead
+        assertEquals(SharedFixtureClient.getReportedMetrics().get("Second One"), GatingMetrics.get().getMetrics().get("Second One").getStatuses());
+    }
+
+    @Test
+    public void invertedMaintenanceWindow() throws Exception {
+        SharedFixtureClient.declareSources();
+        StatusPage.get().getSources().get(0).setMaintenanceLookahead(60);
+
+        // Scheduled to end before it starts
+        Instant start = Instant.now().plus(2, ChronoUnit.HOURS);
+        Instant end = Instant.now().plus(30, ChronoUnit.MINUTES);
+        Incident inverted = new Incident(
+                "iid", "Broken", "scheduled", null, Instant.now().toString(), start.toString(), end.toString(),
+                Collections.singletonList(new Component("deadbeef", "Component #1", "Some desc", Component.Status.OPERATIONAL))
+        );
+        factory = new SharedFixtureClient.InjectingFactory(new SharedFixtureClient() {
+            @Override public @Nonnull List<Incident> listOpenIncidents(Page page) {
+                return Collections.singletonList(inverted);
+            }
+        });
+
+        MetricsUpdater ma = MetricsUpdater.get();
+        ma.doRun();
+
+        // Ignored, the rest of the poll is not affected
+        assertFalse(GatingMetrics.get().getErrors().containsKey("one"));
+        assertEquals(SharedFixtureClient.getReportedMetrics().get("one"), GatingMetrics.get().getMetrics().get("one").getStatuses());
+        assertFalse(ma.isMaintenanceScheduled("one/Component #1", System.currentTimeMillis(), start.toEpochMilli() + 1000));
+    }
+
+    @Test
+    public void degradeStale() throws Exception {
+        SharedFixtureClient.declareSources();
+        SharedFixtureClient.reportMetrics();
+        StatusPage.get().setMaxAge(10);
+
+        MetricsUpdater ma = ExtensionList.lookupSingleton(MetricsUpdater.class);
+        assertEquals(-1, ma.getStalenessAge("one"));
+        ma.doRun();
+        assertTrue(ma.getStalenessAge("one") >= 0);
+
+        long now = System.currentTimeMillis();
+        ma.degradeStale(now + TimeUnit.MINUTES.toMillis(9));
+        assertEquals(SharedFixtureClient.getReportedMetrics().get("one"), GatingMetrics.get().getMetrics().get("one").getStatuses());
+
+        ma.degradeStale(now + TimeUnit.MINUTES.toMillis(11));
+        Map<String, MetricsSnapshot.Resource> stale = GatingMetrics.get().getMetrics().get("one").getStatuses();
+        assertEquals(SharedFixtureClient.getReportedMetrics().get("one").keySet(), stale.keySet());
+        MetricsSnapshot.Resource resource = stale.get("one/Component #1");
+        assertEquals(Component.Status.UNKNOWN, resource.getStatus());
+        MatcherAssert.assertThat(resource.getDescription(), Matchers.containsString("Not updated for 1"));
+
+        // Recovers on successful update
+        ma.doRun();
+        assertEquals(SharedFixtureClient.getReportedMetrics().get("one"), GatingMetrics.get().getMetrics().get("one").getStatuses());
+    }
+
+    @Test
+    public void degradeStaleReconfigured() throws Exception {
+        SharedFixtureClient.declareSources();
+        SharedFixtureClient.reportMetrics();
+        StatusPage.get().setMaxAge(10);
+
+        MetricsUpdater ma = MetricsUpdater.get();
+        ma.doRun();
+        long now = System.currentTimeMillis();
+
+        // Reconfigured source failing ever since
+        factory = new SharedFixtureClient.InjectingFactory(new StatusPageIo("", null) {
+            @Override public @Nonnull List<Page> listPages() throws IOException {
+                throw new IOException("Unauthorized");
+            }
+        });
+        StatusPage.Source changed = new StatusPage.Source("one", "oneName", null, Secret.fromString("rotated"));
+        StatusPage.get().setSources(Collections.singletonList(changed));
+        ma.doRun();
+        assertEquals("Unauthorized", GatingMetrics.get().getErrors().get("one").getCause().getMessage());
+
+        ma.degradeStale(now + TimeUnit.MINUTES.toMillis(9));
+        assertEquals(SharedFixtureClient.getReportedMetrics().get("one"), GatingMetrics.get().getMetrics().get("one").getStatuses());
+
+        ma.degradeStale(now + TimeUnit.MINUTES.toMillis(11));
+        MetricsSnapshot.Resource resource = GatingMetrics.get().getMetrics().get("one").getStatuses().get("one/Component #1");
+        assertEquals(Component.Status.UNKNOWN, resource.getStatus());
+        MatcherAssert.assertThat(resource.getDescription(), Matchers.containsString("Not updated for 1"));
+    }
+
+    @Test
+    public void failUpdate() throws Exception {
         SharedFixtureClient.declareSources();
 
         factory = new SharedFixtureClient.InjectingFactory(new StatusPageIo("", null) {
@@ -86,4 +281,285 @@ public class UpdateTest {
         assertEquals("Can't do", errors.get("one").getCause().getMessage());
         assertEquals("Can't do", errors.get("Second One").getCause().getMessage());
     }
+
+    @Test
+    public void batchPublication() {
+        SharedFixtureClient.declareSources();
+        StatusPage statusPage = StatusPage.get();
+        SnapshotPublisher publisher = new SnapshotPublisher(GatingMetrics::get);
+
+        MetricsSnapshot.Resource first = new MetricsSnapshot.Resource("one/a", Component.Status.OPERATIONAL, null);
+        MetricsSnapshot.Resource second = new MetricsSnapshot.Resource("one/a", Component.Status.MAJOR_OUTAGE, null);
+        publisher.update(new MetricsSnapshot(statusPage, "one", Collections.singletonMap("one/a", first)));
+        publisher.update(new MetricsSnapshot(statusPage, "one", Collections.singletonMap("one/a", second)));
+        publisher.flush();
+
+        // Latest result of the source wins
+        assertEquals(Collections.singletonMap("one/a", second), GatingMetrics.get().getMetrics().get("one").getStatuses());
+
+        // Nothing pending
+        publisher.flush();
+        assertEquals(Collections.singletonMap("one/a", second), GatingMetrics.get().getMetrics().get("one").getStatuses());
+    }
+
+    @Test
+    public void updateOverHttp() throws Exception {
+        try (StatusPageSimulator simulator = new StatusPageSimulator().pages(2).components(15).start()) {
+            factory = null;
+            StatusPage.Source all = new StatusPage.Source("all", simulator.getPageName(1), simulator.getUrl(), Secret.fromString("key"));
+            StatusPage.Source grouped = new StatusPage.Source("grouped", simulator.getPageName(1), simulator.getUrl(), Secret.fromString("key"));
+            grouped.setIncludes("group:group-1");
+            StatusPage.get().setSources(Arrays.asList(all, grouped));
+
+            MetricsUpdater.get().doRun();
+
+            Map<String, MetricsSnapshot> metrics = GatingMetrics.get().getMetrics();
+            // Components and their 2 groups
+            assertEquals(17, metrics.get("all").getStatuses().size());
+            assertTrue(metrics.get("all").getStatuses().containsKey("all/component-0"));
+            assertTrue(metrics.get("all").getStatuses().containsKey("all/group-0"));
+            assertEquals(
+                    ImmutableSet.of("grouped/component-10", "grouped/component-11", "grouped/component-12", "grouped/component-13", "grouped/component-14"),
+                    metrics.get("grouped").getStatuses().keySet()
+            );
+            assertEquals(0, simulator.getUnauthorized());
+        }
+    }
+
+    @Test
+    public void updateOverHttp2() throws Exception {
+        assumeTrue(Http2Transport.isSupported());
+
+        boolean http2 = ClientFactory.HTTP2;
+        ClientFactory.HTTP2 = true;
+        try (StatusPageSimulator simulator = new StatusPageSimulator().pages(2).components(15).http2(true).start()) {
+            factory = null;
+            List<StatusPage.Source> sources = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                sources.add(new StatusPage.Source("source-" + i, simulator.getPageName(i % 2), simulator.getUrl(), Secret.fromString("key")));
+            }
+            StatusPage.get().setSources(sources);
+
+            MetricsUpdater.get().doRun();
+
+            Map<String, MetricsSnapshot> metrics = GatingMetrics.get().getMetrics();
+            for (int i = 0; i < 10; i++) {
+                assertEquals(17, metrics.get("source-" + i).getStatuses().size());
+            }
+            assertEquals(0, simulator.getUnauthorized());
+            // Some requests can race the upgrade to HTTP/2, but most of them are multiplexed
+            MatcherAssert.assertThat(simulator.getConnections(), Matchers.lessThan(10));
+        } finally {
+            ClientFactory.HTTP2 = http2;
+        }
+    }
+
+    @Test
+    public void pollOnAgent() throws Exception {
+        try (StatusPageSimulator simulator = new StatusPageSimulator().pages(1).components(15).start()) {
+            factory = null;
+            DumbSlave agent = j.createOnlineSlave(Label.get("statuspage"));
+            StatusPage.get().setAgentLabel("statuspage");
+            StatusPage.get().setSources(Collections.singletonList(
+                    new StatusPage.Source("remote", simulator.getPageName(0), simulator.getUrl(), Secret.fromString("key"))
+            ));
+
+            MetricsUpdater updater = MetricsUpdater.get();
+            updater.doRun();
+            assertEquals(17, GatingMetrics.get().getMetrics().get("remote").getStatuses().size());
+            SourceStatistics stats = updater.getStatistics("remote");
+            assertEquals(1, stats.getAgentPolls());
+            assertTrue(stats.getLastTransferSize() > 0);
+            assertEquals(0, simulator.getUnauthorized());
+            assertEquals(FormValidation.Kind.WARNING, StatusPage.get().doCheckAgentLabel("statuspage").kind);
+            assertEquals(FormValidation.Kind.OK, StatusPage.get().doCheckAgentLabel(" ").kind);
+
+            // Controller takes over
+            agent.toComputer().disconnect(null).get();
+            long requests = simulator.getRequests();
+            updater.doRun();
+            assertTrue(simulator.getRequests() > requests);
+            assertEquals(1, stats.getAgentPolls());
+            assertEquals(2, stats.getPolls());
+            assertEquals(0, stats.getFailures());
+        }
+    }
+
+    @Test
+    public void reconfigure() throws Exception {
+        SharedFixtureClient.declareSources();
+        SharedFixtureClient.reportMetrics();
+
+        MetricsUpdater ma = MetricsUpdater.get();
+        ma.doRun();
+        assertTrue(ma.getStalenessAge("one") >= 0);
+        assertTrue(ma.getStalenessAge("Second One") >= 0);
+
+        // Equal source keeps its state, removed one is evicted at once
+        StatusPage.get().setSources(Collections.singletonList(new StatusPage.Source("one", "oneName", null, null)));
+        assertTrue(ma.getStalenessAge("one") >= 0);
+        assertEquals(-1, ma.getStalenessAge("Second One"));
+        assertTrue(GatingMetrics.get().getStatusOfAllResources().keySet().stream().noneMatch(r -> r.startsWith("Second One/")));
+        assertEquals(SharedFixtureClient.getReportedMetrics().get("one"), GatingMetrics.get().getMetrics().get("one").getStatuses());
+
+        // Changed source keeps the age of its published snapshot
+        StatusPage.Source changed = new StatusPage.Source("one", "oneName", null, null);
+        changed.setIncludes("Component*");
+        StatusPage.get().setSources(Collections.singletonList(changed));
+        assertTrue(ma.getStalenessAge("one") >= 0);
+
+        ma.doRun();
+        assertTrue(ma.getStalenessAge("one") >= 0);
+        assertEquals(SharedFixtureClient.getReportedMetrics().get("one"), GatingMetrics.get().getMetrics().get("one").getStatuses());
+    }
+
+    @Test
+    public void resolvePageOnce() throws Exception {
+        AtomicInteger listed = new AtomicInteger();
+        factory = new SharedFixtureClient.InjectingFactory(new SharedFixtureClient() {
+            @Override public @Nonnull List<Page> listPages() {
+                listed.incrementAndGet();
+                return super.listPages();
+            }
+        });
+        StatusPage.get().setSources(Collections.singletonList(new StatusPage.Source("one", "oneName", null, null)));
+
+        MetricsUpdater ma = MetricsUpdater.get();
+        ma.doRun();
+        ma.doRun();
+        assertEquals(1, listed.get());
+
+        // Kept when the page and credentials are the same
+        StatusPage.Source filtered = new StatusPage.Source("one", "oneName", null, null);
+        filtered.setIncludes("Component*");
+        StatusPage.get().setSources(Collections.singletonList(filtered));
+        ma.doRun();
+        assertEquals(1, listed.get());
+
+        StatusPage.get().setSources(Collections.singletonList(new StatusPage.Source("one", "twoName", null, null)));
+        ma.doRun();
+        ma.doRun();
+        assertEquals(2, listed.get());
+        assertEquals(SharedFixtureClient.getReportedMetrics().get("Second One").size(), GatingMetrics.get().getMetrics().get("one").getStatuses().size());
+    }
+
+    @Test
+    public void onDemand() throws Exception {
+        SharedFixtureClient.declareSources();
+        StatusPage.get().getSources().get(0).setOnDemand(true);
+
+        AtomicInteger reads = new AtomicInteger();
+        factory = new SharedFixtureClient.InjectingFactory(new SharedFixtureClient() {
+            @Override public @Nonnull List<Component> listComponents(Page page, @Nonnull ComponentFilter filter) {
+                reads.incrementAndGet();
+                return super.listComponents(page, filter);
+            }
+        });
+
+        MetricsUpdater ma = MetricsUpdater.get();
+        ma.doRun();
+        assertNull(GatingMetrics.get().getMetrics().get("one"));
+        assertEquals(1, reads.get());
+
+        Future<?> first = ma.demand("one/Component #1");
+        Future<?> second = ma.demand("one/Component #1");
+        first.get();
+        second.get();
+        assertEquals(2, reads.get());
+        assertEquals(SharedFixtureClient.getReportedMetrics().get("one"), GatingMetrics.get().getMetrics().get("one").getStatuses());
+
+        // Served from cache while fresh
+        ma.demand("one/Component #1").get();
+        assertEquals(2, reads.get());
+
+        ma.demand("one", -1).get();
+        assertEquals(3, reads.get());
+
+        // Not for sources polled in the background
+        ma.demand("Second One/Squirrel", -1).get();
+        assertEquals(3, reads.get());
+    }
+
+    @Test
+    public void demandForBlockedBuild() throws Exception {
+        SharedFixtureClient.declareSources();
+        StatusPage.get().getSources().get(0).setOnDemand(true);
+        SharedFixtureClient.reportMetrics();
+
+        MetricsUpdater ma = MetricsUpdater.get();
+        ma.doRun();
+        assertNull(GatingMetrics.get().getMetrics().get("one"));
+
+        FreeStyleProject p = j.createFreeStyleProject();
+        QueueTaskFuture<FreeStyleBuild> build = p.scheduleBuild2(0);
+        Queue queue = j.jenkins.getQueue();
+        queue.maintain();
+        assertTrue(queue.getItem(p).isBlocked());
+
+        // Refreshed once the build waits for it
+        ExtensionList.lookupSingleton(RecoveryPoller.class).doRun();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (GatingMetrics.get().getMetrics().get("one") == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        queue.maintain();
+        j.assertBuildStatusSuccess(build.get(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Block builds until the resource is up, as gating does.
+     */
+    @TestExtension("demandForBlockedBuild")
+    public static final class BlockingDispatcher extends QueueTaskDispatcher {
+        private static final String RESOURCE = "one/Component #1";
+
+        @Override
+        public CauseOfBlockage canRun(Queue.Item item) {
+            MetricsSnapshot.Resource resource = MetricsUpdater.get().getResource(RESOURCE);
+            if (resource != null && resource.getStatus().getCategory() == ResourceStatus.Category.UP) return null;
+
+            return new CauseOfBlockage() {
+                @Override
+                public String getShortDescription() {
+                    return "Resource " + RESOURCE + " is not up";
+                }
+            };
+        }
+    }
+
+    @Test
+    public void priority() throws Exception {
+        SharedFixtureClient.declareSources();
+        List<StatusPage.Source> sources = StatusPage.get().getSources();
+
+        Map<String, List<String>> reads = new ConcurrentHashMap<>();
+        factory = new SharedFixtureClient.InjectingFactory(new SharedFixtureClient() {
+            @Override public @Nonnull List<Component> listComponents(Page page, @Nonnull ComponentFilter filter) {
+                reads.computeIfAbsent(page.getName(), k -> new CopyOnWriteArrayList<>()).add(page.getName());
+                return super.listComponents(page, filter);
+            }
+        });
+
+        MetricsUpdater ma = MetricsUpdater.get();
+        ma.doRun();
+        Map<String, MetricsSnapshot> snapshots = GatingMetrics.get().getMetrics();
+
+        // Second One has some components down
+        assertEquals(Arrays.asList(sources.get(1), sources.get(0)), PollPriority.order(sources, Collections.emptyMap(), snapshots));
+        assertEquals(Arrays.asList(sources.get(0), sources.get(1)), PollPriority.order(sources, Collections.singletonMap("one", 2), snapshots));
+
+        assertTrue(PollPriority.refersTo("one/Component #1 is down", "one"));
+        assertTrue(PollPriority.refersTo("Resources [Second One/Squirrel, one/Component #1] are down", "one"));
+        assertTrue(PollPriority.refersTo("Resource 'Second One/Squirrel' is down", "Second One"));
+        assertFalse(PollPriority.refersTo("Resource gone/Component #1 is down", "one"));
+        assertFalse(PollPriority.refersTo("Resource one is down", "one"));
+
+        ma.pollDown();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (reads.get("twoName").size() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, reads.get("twoName").size());
+        assertEquals(1, reads.get("oneName").size());
+    }
 }
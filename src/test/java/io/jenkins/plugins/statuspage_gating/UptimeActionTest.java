@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jenkins.plugins.statuspage_gating;
+
+import net.sf.json.JSONObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class UptimeActionTest {
+
+    @Rule public final JenkinsRule j = new JenkinsRule();
+
+    @Test
+    public void serve() throws Exception {
+        SharedFixtureClient.declareSources();
+        SharedFixtureClient.reportMetrics();
+        MetricsUpdater.get().doRun();
+
+        try (JenkinsRule.WebClient wc = j.createWebClient()) {
+            String page = wc.goTo("statuspage-uptime/").getWebResponse().getContentAsString();
+            assertThat(page, containsString("Second One/Squirrel"));
+
+            String json = wc.goTo("statuspage-uptime/json?resource=one/Component%20%231", "application/json").getWebResponse().getContentAsString();
+            JSONObject uptime = JSONObject.fromObject(json);
+            assertEquals(1, uptime.size());
+            assertTrue(uptime.getJSONObject("one/Component #1").has("24h"));
+
+            JSONObject all = JSONObject.fromObject(wc.goTo("statuspage-uptime/json", "application/json").getWebResponse().getContentAsString());
+            assertEquals(4, all.size());
+        }
+    }
+}
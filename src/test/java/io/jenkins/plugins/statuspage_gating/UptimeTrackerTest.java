@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.jenkins.plugins.statuspage_gating;
+
+import io.jenkins.plugins.gating.MetricsSnapshot;
+import io.jenkins.plugins.statuspage_gating.api.Component;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static io.jenkins.plugins.statuspage_gating.UptimeTracker.Window.DAY;
+import static io.jenkins.plugins.statuspage_gating.UptimeTracker.Window.HOUR;
+import static io.jenkins.plugins.statuspage_gating.UptimeTracker.Window.WEEK;
+import static org.junit.Assert.assertEquals;
+
+public class UptimeTrackerTest {
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final long START = TimeUnit.DAYS.toMillis(20000);
+
+    @Rule public final TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void availability() {
+        UptimeTracker tracker = new UptimeTracker(null);
+        assertEquals(-1, tracker.getAvailability("s/db", HOUR, START), 0);
+
+        // 30 minutes up, 10 down, 20 up
+        long now = START;
+        for (int i = 0; i <= 60; i++, now += MINUTE) {
+            tracker.record(status("s/db", i >= 30 && i < 40 ? Component.Status.MAJOR_OUTAGE : Component.Status.OPERATIONAL), now);
+        }
+        now -= MINUTE;
+        // First minute already expired from the hour
+        assertEquals(49 / 59.0, tracker.getAvailability("s/db", HOUR, now), 0.001);
+        assertEquals(50 / 60.0, tracker.getAvailability("s/db", DAY, now), 0.001);
+        assertEquals(50 / 60.0, tracker.getAvailability("s/db", WEEK, now), 0.001);
+
+        // The outage expires from the hour, but not from the day
+        for (int i = 0; i < 60; i++) {
+            now += MINUTE;
+            tracker.record(status("s/db", Component.Status.OPERATIONAL), now);
+        }
+        assertEquals(1, tracker.getAvailability("s/db", HOUR, now), 0);
+        assertEquals(110 / 120.0, tracker.getAvailability("s/db", DAY, now), 0.001);
+
+        // Nothing observed in the last hour
+        assertEquals(-1, tracker.getAvailability("s/db", HOUR, now + TimeUnit.HOURS.toMillis(2)), 0);
+        assertEquals(110 / 120.0, tracker.getAvailability("s/db", DAY, now + TimeUnit.HOURS.toMillis(2)), 0.001);
+        assertEquals(-1, tracker.getAvailability("s/db", WEEK, now + TimeUnit.DAYS.toMillis(8)), 0);
+    }
+
+    @Test
+    public void spanSeveralBuckets() {
+        UptimeTracker tracker = new UptimeTracker(null);
+        // 10 minutes down and 2 up, seen by few polls
+        tracker.record(status("s/db", Component.Status.MAJOR_OUTAGE), START);
+        tracker.record(status("s/db", Component.Status.OPERATIONAL), START + 10 * MINUTE);
+        tracker.record(status("s/db", Component.Status.OPERATIONAL), START + 12 * MINUTE);
+        assertEquals(2 / 12.0, tracker.getAvailability("s/db", HOUR, START + 12 * MINUTE), 0.001);
+
+        // The outage expires from the hour minute by minute
+        assertEquals(2 / 11.0, tracker.getAvailability("s/db", HOUR, START + 60 * MINUTE), 0.001);
+        assertEquals(2 / 10.0, tracker.getAvailability("s/db", HOUR, START + 61 * MINUTE), 0.001);
+        assertEquals(2 / 6.0, tracker.getAvailability("s/db", HOUR, START + 65 * MINUTE), 0.001);
+        assertEquals(1, tracker.getAvailability("s/db", HOUR, START + 70 * MINUTE), 0);
+        assertEquals(2 / 12.0, tracker.getAvailability("s/db", DAY, START + 70 * MINUTE), 0.001);
+    }
+
+    @Test
+    public void gapsNotObserved() {
+        UptimeTracker tracker = new UptimeTracker(null);
+        tracker.record(status("s/db", Component.Status.MAJOR_OUTAGE), START);
+        long now = START + UptimeTracker.MAX_GAP + MINUTE;
+        tracker.record(status("s/db", Component.Status.OPERATIONAL), now);
+        tracker.record(status("s/db", Component.Status.OPERATIONAL), now + MINUTE);
+
+        assertEquals(1, tracker.getAvailability("s/db", DAY, now + MINUTE), 0);
+    }
+
+    @Test
+    public void persist() throws Exception {
+        File file = new File(tmp.getRoot(), "uptime.bin");
+        UptimeTracker tracker = UptimeTracker.load(file);
+        long now = START;
+        for (int i = 0; i < 10; i++, now += MINUTE) {
+            tracker.record(status("s/db", i < 5 ? Component.Status.OPERATIONAL : Component.Status.PARTIAL_OUTAGE), now);
+            tracker.record(status("other/api", Component.Status.OPERATIONAL), now);
+        }
+        tracker.remove("other");
+        tracker.save();
+
+        UptimeTracker loaded = UptimeTracker.load(file);
+        assertEquals(Collections.singleton("s/db"), loaded.getResources());
+        assertEquals(tracker.getAvailability("s/db", DAY, now), loaded.getAvailability("s/db", DAY, now), 0);
+        assertEquals(5 / 9.0, loaded.getAvailability("s/db", HOUR, now), 0.001);
+
+        // Continues where it stopped
+        loaded.record(status("s/db", Component.Status.OPERATIONAL), now);
+        assertEquals(5 / 10.0, loaded.getAvailability("s/db", HOUR, now), 0.001);
+
+        // Unreadable file starts afresh
+        Files.write(file.toPath(), new byte[] {1, 2, 3});
+        assertEquals(Collections.emptySet(), UptimeTracker.load(file).getResources());
+    }
+
+    private static Map<String, MetricsSnapshot.Resource> status(String resource, Component.Status status) {
+        return Collections.singletonMap(resource, new MetricsSnapshot.Resource(resource, status, ""));
+    }
+}
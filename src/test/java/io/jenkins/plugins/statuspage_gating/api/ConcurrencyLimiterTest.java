@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jenkins.plugins.statuspage_gating.api;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static io.jenkins.plugins.statuspage_gating.api.ConcurrencyLimiter.Outcome.IGNORED;
+import static io.jenkins.plugins.statuspage_gating.api.ConcurrencyLimiter.Outcome.OVERLOAD;
+import static io.jenkins.plugins.statuspage_gating.api.ConcurrencyLimiter.Outcome.SUCCESS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrencyLimiterTest {
+    private static final long LATENCY = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    public void increaseWhileSaturated() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, 1, 3);
+
+        // Not using the limit does not raise it
+        for (int i = 0; i < 10; i++) {
+            limiter.release(limiter.acquire(), SUCCESS, LATENCY);
+        }
+        assertEquals(2, limiter.getLimit());
+
+        // Saturated windows raise it by about one per limit's worth of them
+        for (int i = 0; i < 4; i++) {
+            saturate(limiter, SUCCESS, LATENCY);
+        }
+        assertEquals(3, limiter.getLimit());
+
+        for (int i = 0; i < 20; i++) {
+            saturate(limiter, SUCCESS, LATENCY);
+        }
+        assertEquals("Capped", 3, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void decreaseOnOverload() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(10, 2, 10);
+        limiter.release(limiter.acquire(), SUCCESS, LATENCY);
+
+        // All the requests of the same window cut the limit once
+        long[] tickets = new long[5];
+        for (int i = 0; i < tickets.length; i++) {
+            tickets[i] = limiter.acquire();
+        }
+        for (long ticket : tickets) {
+            limiter.release(ticket, OVERLOAD, -1);
+        }
+        assertEquals(7, limiter.getLimit());
+        assertEquals(1, limiter.getDecreases());
+
+        // Latency growth
+        limiter.release(limiter.acquire(), SUCCESS, 3 * LATENCY);
+        assertEquals(4, limiter.getLimit());
+
+        // Small growth is noise
+        limiter.release(limiter.acquire(), SUCCESS, LATENCY + TimeUnit.MILLISECONDS.toNanos(20));
+        limiter.release(limiter.acquire(), IGNORED, -1);
+        assertEquals(4, limiter.getLimit());
+
+        for (int i = 0; i < 5; i++) {
+            limiter.release(limiter.acquire(), OVERLOAD, -1);
+        }
+        assertEquals("Floored", 2, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test(timeout = 10_000)
+    public void blockOverLimit() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 1);
+        long ticket = limiter.acquire();
+
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiting = new Thread(() -> {
+            try {
+                limiter.acquire();
+                acquired.countDown();
+            } catch (Exception ex) {
+                throw new AssertionError(ex);
+            }
+        });
+        waiting.start();
+        assertFalse(acquired.await(200, TimeUnit.MILLISECONDS));
+
+        limiter.release(ticket, SUCCESS, LATENCY);
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+    }
+
+    private static void saturate(ConcurrencyLimiter limiter, ConcurrencyLimiter.Outcome outcome, long latency) throws Exception {
+        int limit = limiter.getLimit();
+        long[] tickets = new long[limit];
+        for (int i = 0; i < limit; i++) {
+            tickets[i] = limiter.acquire();
+        }
+        // The first release sees the limit saturated
+        limiter.release(tickets[0], outcome, latency);
+        for (int i = 1; i < limit; i++) {
+            limiter.release(tickets[i], IGNORED, -1);
+        }
+    }
+}
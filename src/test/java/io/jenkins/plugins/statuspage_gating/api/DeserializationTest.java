@@ -26,13 +26,19 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import org.junit.Test;
 
 import java.io.InputStream;
+import java.time.Instant;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class DeserializationTest {
 
@@ -101,6 +107,105 @@ public class DeserializationTest {
         assertEquals(Arrays.asList("cccccccccccc", "dddddddddddd", "eeeeeeeeeeee", "ffffffffffff"), bar.getComponentIds());
     }
 
+    @Test
+    public void summary() throws Exception {
+        Summary summary;
+        try (InputStream res = getClass().getResourceAsStream("DeserializationTest/summary.json")) {
+            summary = StatusPageIo.deserializeSummary(res, ComponentFilter.ALL);
+        }
+
+        assertEquals("d78dc5bb023f", summary.getPage().getId());
+        assertEquals("MyPage", summary.getPage().getName());
+
+        Map<String, Component> components = summary.getComponents().stream()
+                .collect(Collectors.toMap(Component::getId, Function.identity()));
+        assertEquals(4, components.size());
+
+        Component as = components.get("aaaaaaaaaaaa");
+        assertEquals("aaaa", as.getName());
+        assertEquals(Component.Status.OPERATIONAL, as.getStatus());
+        assertEquals("Operational Resource", as.getDescription());
+
+        assertEquals(Component.Status.UNDER_MAINTENANCE, components.get("bbbbbbbbbbbb").getStatus());
+
+        Component cs = components.get("cccccccccccc");
+        assertEquals(Component.Status.MAJOR_OUTAGE, cs.getStatus());
+        assertNull(cs.getDescription());
+
+        // Groups are reported as components too
+        Component fooGroup = components.get("wfwsc3371234");
+        assertEquals("Foo", fooGroup.getName());
+        assertEquals(Component.Status.UNDER_MAINTENANCE, fooGroup.getStatus());
+        assertNull(fooGroup.getGroupId());
+
+        assertEquals(1, summary.getGroups().size());
+        ComponentGroup foo = summary.getGroups().get(0);
+        assertEquals("wfwsc3371234", foo.getId());
+        assertEquals("Foo", foo.getName());
+        assertEquals(Arrays.asList("aaaaaaaaaaaa", "bbbbbbbbbbbb"), foo.getComponentIds());
+
+        Map<String, Incident> incidents = summary.getIncidents().stream()
+                .collect(Collectors.toMap(Incident::getId, Function.identity()));
+        assertEquals(2, incidents.size());
+
+        Incident incident = incidents.get("p31zjtct2jer");
+        assertEquals("Database Connection Issues", incident.getName());
+        assertTrue(incident.isOpen());
+        assertFalse(incident.isMaintenance());
+        assertEquals(Instant.parse("2020-12-23T20:00:00Z"), incident.getWindowStart());
+        assertEquals(Instant.MAX, incident.getWindowEnd());
+        assertEquals(Collections.singletonList("cccc"), incident.getComponentNames());
+
+        Incident maintenance = incidents.get("w1zdr745wmfy");
+        assertTrue(maintenance.isOpen());
+        assertTrue(maintenance.isMaintenance());
+        assertEquals(Instant.parse("2020-12-23T20:00:00Z"), maintenance.getWindowStart());
+        assertEquals(Instant.parse("2020-12-24T00:00:00Z"), maintenance.getWindowEnd());
+        assertEquals(Collections.singletonList("bbbb"), maintenance.getComponentNames());
+    }
+
+    @Test
+    public void filterComponents() throws Exception {
+        assertEquals(Arrays.asList("aaaa", "bbbb", "cccc", "dddd", "eeee", "ffff"), readComponents(null, null));
+        assertEquals(Arrays.asList("aaaa", "cccc"), readComponents("aaaa\n\n  /c+/  \n", null));
+        assertEquals(Arrays.asList("aaaa", "bbbb", "ffff"), readComponents(null, "/[cde]+/"));
+        assertEquals(Arrays.asList("bbbb", "dddd"), readComponents("id:bbbb*\nid:?ddddddddddd", null));
+        assertEquals(Arrays.asList("cccc", "dddd", "eeee", "ffff"), readComponents("group:Bar", null));
+        assertEquals(Arrays.asList("cccc", "dddd", "eeee", "ffff"), readComponents("group:wfwsc3371235", null));
+        assertEquals(Arrays.asList("aaaa", "bbbb"), readComponents(null, "group:B*"));
+        assertEquals(Arrays.asList("cccc", "dddd", "ffff"), readComponents("group:B?r", "eeee"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidFilter() {
+        ComponentFilter.compile("/[/", null);
+    }
+
+    @Test
+    public void filterSummary() throws Exception {
+        Summary summary;
+        try (InputStream res = getClass().getResourceAsStream("DeserializationTest/summary.json")) {
+            summary = StatusPageIo.deserializeSummary(res, ComponentFilter.compile("group:Foo", "aaaa"));
+        }
+        assertEquals(Collections.singletonList("bbbb"), summary.getComponents().stream().map(Component::getName).collect(Collectors.toList()));
+        assertEquals("wfwsc3371234", summary.getComponents().get(0).getGroupId());
+        assertEquals(1, summary.getGroups().size());
+    }
+
+    private List<String> readComponents(String includes, String excludes) throws Exception {
+        Map<String, String> groupNames = new HashMap<>();
+        for (ComponentGroup group : read(TYPE_COMPONENT_GROUPS, "component-groups")) {
+            groupNames.put(group.getId(), group.getName());
+        }
+
+        try (InputStream res = getClass().getResourceAsStream("DeserializationTest/grouped-components.json")) {
+            return StatusPageIo.deserializeComponents(res, ComponentFilter.compile(includes, excludes), groupNames).stream()
+                    .map(Component::getName)
+                    .collect(Collectors.toList())
+            ;
+        }
+    }
+
     private <T> T read(TypeReference<T> type, String file) throws java.io.IOException {
         try (InputStream res = getClass().getResourceAsStream("DeserializationTest/" + file + ".json")) {
             return StatusPageIo.deserializeBody(type, res);
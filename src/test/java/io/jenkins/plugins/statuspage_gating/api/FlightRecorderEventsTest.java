@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jenkins.plugins.statuspage_gating.api;
+
+import org.junit.Test;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * The plugin is compiled against Java 8, so the recordings are driven reflectively, same as the events.
+ */
+public class FlightRecorderEventsTest {
+    private static final String PREFIX = "io.jenkins.plugins.statuspage_gating.";
+    private static final byte[] PAGES = "[{\"id\":\"p1\",\"name\":\"Page\"}]".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void requestAndDeserialization() throws Exception {
+        assumeTrue("Flight recorder is not supported", FlightRecorderEvents.isSupported());
+
+        List<Object> events = record(PREFIX + "HttpRequest", PREFIX + "Deserialization");
+        assertEquals(2, events.size());
+
+        Object deserialization = find(events, PREFIX + "Deserialization");
+        assertEquals("pages", value(deserialization, "resource"));
+        assertEquals(1, value(deserialization, "components"));
+
+        Object request = find(events, PREFIX + "HttpRequest");
+        assertEquals("pages", value(request, "urlTemplate"));
+        assertEquals(200, value(request, "status"));
+        assertEquals((long) PAGES.length, value(request, "bytes"));
+    }
+
+    @Test
+    public void deserializationOnly() throws Exception {
+        assumeTrue("Flight recorder is not supported", FlightRecorderEvents.isSupported());
+
+        List<Object> events = record(PREFIX + "Deserialization");
+        assertEquals(1, events.size());
+        assertEquals("pages", value(find(events, PREFIX + "Deserialization"), "resource"));
+    }
+
+    /**
+     * List pages with given events enabled.
+     */
+    private static List<Object> record(String... enabled) throws Exception {
+        Class<?> recordingType = Class.forName("jdk.jfr.Recording");
+        Object recording = recordingType.getConstructor().newInstance();
+        Path file = Files.createTempFile("statuspage", ".jfr");
+        try {
+            for (String name : enabled) {
+                recordingType.getMethod("enable", String.class).invoke(recording, name);
+            }
+            recordingType.getMethod("start").invoke(recording);
+            try (StatusPageIo client = new StatusPageIo("https://api.statuspage.io/v1/", null, new PagesTransport())) {
+                assertEquals("Page", client.listPages().get(0).getName());
+            }
+            recordingType.getMethod("stop").invoke(recording);
+            recordingType.getMethod("dump", Path.class).invoke(recording, file);
+
+            Method readAllEvents = Class.forName("jdk.jfr.consumer.RecordingFile").getMethod("readAllEvents", Path.class);
+            List<Object> events = new ArrayList<>();
+            for (Object event : (List<?>) readAllEvents.invoke(null, file)) {
+                if (name(event).startsWith(PREFIX)) {
+                    events.add(event);
+                }
+            }
+            return events;
+        } finally {
+            recordingType.getMethod("close").invoke(recording);
+            Files.delete(file);
+        }
+    }
+
+    private static Object find(List<Object> events, String name) throws Exception {
+        for (Object event : events) {
+            if (name(event).equals(name)) return event;
+        }
+        throw new AssertionError("No " + name + " in " + events);
+    }
+
+    private static String name(Object event) throws Exception {
+        Object type = event.getClass().getMethod("getEventType").invoke(event);
+        return (String) type.getClass().getMethod("getName").invoke(type);
+    }
+
+    private static Object value(Object event, String field) throws Exception {
+        return event.getClass().getMethod("getValue", String.class).invoke(event, field);
+    }
+
+    private static final class PagesTransport implements Transport {
+        @Override
+        public <T> T get(@Nonnull String url, @CheckForNull String authorization, @Nonnull ResponseHandler<T> handler) throws IOException {
+            return handler.handle(new Response() {
+                @Override public int getStatusCode() {
+                    return 200;
+                }
+
+                @Override public @CheckForNull String getHeader(@Nonnull String name) {
+                    return "Content-Type".equalsIgnoreCase(name) ? "application/json" : null;
+                }
+
+                @Override public @Nonnull InputStream getBody() {
+                    return new ByteArrayInputStream(PAGES);
+                }
+            });
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
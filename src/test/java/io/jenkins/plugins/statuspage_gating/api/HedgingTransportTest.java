@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jenkins.plugins.statuspage_gating.api;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntUnaryOperator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HedgingTransportTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void hedgeSlowRequest() throws Exception {
+        // 21st request is slow, its hedge is fast
+        FakeTransport fake = new FakeTransport(i -> i == 20 ? 5000 : 1, i -> 200);
+        HedgingTransport transport = new HedgingTransport(fake, executor, 1);
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals("0", get(transport));
+        }
+        assertEquals(0, transport.getHedges());
+
+        long start = System.nanoTime();
+        assertEquals("21", get(transport));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+        assertEquals(21, transport.getRequests());
+        assertEquals(1, transport.getHedges());
+        assertEquals(1, transport.getHedgeWins());
+    }
+
+    @Test
+    public void sampleAbandonedPrimary() throws Exception {
+        // Primaries of 21st and 22nd request are slow, their hedges are fast
+        FakeTransport fake = new FakeTransport(i -> i == 20 || i == 22 ? 300 : i == 24 ? 100 : 1, i -> 200);
+        HedgingTransport transport = new HedgingTransport(fake, executor, 1);
+
+        for (int i = 0; i < 22; i++) {
+            get(transport);
+        }
+        assertEquals(2, transport.getHedges());
+
+        // Abandoned primaries pushed the percentile up, so the next request is not hedged within its 100 ms
+        Thread.sleep(600);
+        assertEquals("24", get(transport));
+        assertEquals(2, transport.getHedges());
+    }
+
+    @Test
+    public void abortSlowerAttempt() throws Exception {
+        // Response to the 21st request is held until the end of the test, its hedge is not
+        AtomicInteger requests = new AtomicInteger();
+        CountDownLatch held = new CountDownLatch(1);
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            if (requests.getAndIncrement() == 20) {
+                try {
+                    held.await();
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+            }
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.setExecutor(executor);
+        server.start();
+        String url = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/";
+
+        PoolingHttpClientConnectionManager connections = new PoolingHttpClientConnectionManager();
+        connections.setDefaultMaxPerRoute(2);
+        ExecutorService attempts = Executors.newCachedThreadPool();
+        HttpClientTransport http = new HttpClientTransport(HttpClients.custom().setConnectionManager(connections).build());
+        try (HedgingTransport transport = new HedgingTransport(http, attempts, 1)) {
+            for (int i = 0; i < 21; i++) {
+                assertEquals("ok", get(transport, url));
+            }
+            assertEquals(1, transport.getHedges());
+
+            // Slower attempt gave up its thread and connection while its response is still held
+            attempts.shutdown();
+            assertTrue(attempts.awaitTermination(5, TimeUnit.SECONDS));
+            assertEquals(0, connections.getTotalStats().getLeased());
+            assertEquals(1, held.getCount());
+        } finally {
+            held.countDown();
+            attempts.shutdownNow();
+            // Let the held exchange complete
+            server.stop(1);
+        }
+    }
+
+    @Test
+    public void budget() throws Exception {
+        FakeTransport fake = new FakeTransport(i -> i >= 20 ? 20 : 1, i -> 200);
+        HedgingTransport transport = new HedgingTransport(fake, executor, 0.05);
+
+        for (int i = 0; i < 100; i++) {
+            get(transport);
+        }
+        // One hedge earned by every 20 requests
+        long hedges = transport.getHedges();
+        assertTrue(String.valueOf(hedges), hedges >= 1 && hedges <= 5);
+        assertEquals(100 + hedges, fake.calls.get());
+    }
+
+    @Test
+    public void throttledSpendsBudget() throws Exception {
+        // Throttled response arrives before the hedge
+        FakeTransport fake = new FakeTransport(i -> i < 20 ? 1 : i == 20 ? 100 : 300, i -> i == 20 ? 429 : 200);
+        HedgingTransport transport = new HedgingTransport(fake, executor, 0.5);
+
+        for (int i = 0; i < 20; i++) {
+            get(transport);
+        }
+        try {
+            get(transport);
+            fail();
+        } catch (IOException ex) {
+            assertEquals("Status code 429", ex.getMessage());
+        }
+        assertEquals(1, transport.getHedges());
+
+        // Budget spent by the throttled response
+        assertEquals("22", get(transport));
+        assertEquals(1, transport.getHedges());
+        assertEquals(23, fake.calls.get());
+    }
+
+    @Test
+    public void bothFail() throws Exception {
+        FakeTransport fake = new FakeTransport(i -> i >= 20 ? 100 : 1, i -> i >= 20 ? 500 : 200);
+        HedgingTransport transport = new HedgingTransport(fake, executor, 1);
+
+        for (int i = 0; i < 20; i++) {
+            get(transport);
+        }
+        try {
+            get(transport);
+            fail();
+        } catch (IOException ex) {
+            assertEquals("Status code 500", ex.getMessage());
+        }
+        assertEquals(1, transport.getHedges());
+    }
+
+    private static String get(Transport transport) throws IOException {
+        return get(transport, "http://example.com");
+    }
+
+    private static String get(Transport transport, String url) throws IOException {
+        return transport.get(url, null, rsp -> {
+            if (rsp.getStatusCode() != 200) throw new IOException("Status code " + rsp.getStatusCode());
+
+            byte[] bytes = new byte[16];
+            int read = rsp.getBody().read(bytes);
+            return new String(bytes, 0, read, StandardCharsets.UTF_8);
+        });
+    }
+
+    /**
+     * Respond with the number of previous calls, after a delay.
+     */
+    private static final class FakeTransport implements Transport {
+        private final AtomicInteger calls = new AtomicInteger();
+        private final IntUnaryOperator latency;
+        private final IntUnaryOperator statusCode;
+
+        private FakeTransport(IntUnaryOperator latency, IntUnaryOperator statusCode) {
+            this.latency = latency;
+            this.statusCode = statusCode;
+        }
+
+        @Override
+        public <T> T get(@Nonnull String url, @CheckForNull String authorization, @Nonnull ResponseHandler<T> handler) throws IOException {
+            int call = calls.getAndIncrement();
+            try {
+                Thread.sleep(latency.applyAsInt(call));
+            } catch (InterruptedException ex) {
+                throw new IOException(ex);
+            }
+
+            int code = statusCode.applyAsInt(call);
+            // Answer equally to the first 20 calls so they are easy to assert
+            String body = String.valueOf(call < 20 ? 0 : call);
+            return handler.handle(new Response() {
+                @Override public int getStatusCode() {
+                    return code;
+                }
+
+                @Override public @CheckForNull String getHeader(@Nonnull String name) {
+                    return null;
+                }
+
+                @Override public @Nonnull InputStream getBody() {
+                    return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+                }
+            });
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
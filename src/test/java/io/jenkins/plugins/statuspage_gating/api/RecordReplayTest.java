@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jenkins.plugins.statuspage_gating.api;
+
+import com.sun.net.httpserver.HttpServer;
+import hudson.util.Secret;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RecordReplayTest {
+    private static final String KEY = "s3cr3t-api-key";
+
+    @Rule public final TemporaryFolder tmp = new TemporaryFolder();
+
+    private HttpServer server;
+    private final ExecutorService serverExecutor = Executors.newCachedThreadPool();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger hedgedRequests = new AtomicInteger();
+    private final CountDownLatch slowResponse = new CountDownLatch(1);
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/v1/pages", exchange -> {
+            requests.incrementAndGet();
+            byte[] body = "[{\"id\":\"p1\",\"name\":\"Page\"}]".getBytes(StandardCharsets.UTF_8);
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.getResponseHeaders().set("ETag", "\"v1\"");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        // The 21st request, first past the hedging warm-up, is held until released
+        server.createContext("/hedged/v1/pages", exchange -> {
+            if (hedgedRequests.incrementAndGet() == 21) {
+                try {
+                    slowResponse.await();
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+            }
+            byte[] body = "[{\"id\":\"p1\",\"name\":\"Page\"}]".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.setExecutor(serverExecutor);
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        slowResponse.countDown();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void recordAndReplay() throws Exception {
+        File dir = tmp.newFolder("archive");
+        String url = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/v1/";
+
+        TrafficArchive archive = new TrafficArchive(dir);
+        try (StatusPageIo live = new StatusPageIo(url, Secret.fromString(KEY), new RecordingTransport(new HttpClientTransport(StatusPageIo.createPooledClient(1)), archive))) {
+            assertEquals("Page", live.listPages().get(0).getName());
+        }
+        assertEquals(1, requests.get());
+
+        // Secret never written
+        for (File file : dir.listFiles()) {
+            assertThat(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8), not(containsString(KEY)));
+        }
+        List<TrafficArchive.Exchange> recorded = new TrafficArchive(dir).load();
+        assertEquals(1, recorded.size());
+        assertEquals("\"v1\"", recorded.get(0).getHeader("etag"));
+        assertThat(recorded.get(0).latencyMillis, greaterThanOrEqualTo(200L));
+
+        // Replayed against other host, at recorded and accelerated speed
+        server.stop(0);
+        ReplayTransport replay = new ReplayTransport(new TrafficArchive(dir), 1);
+        try (StatusPageIo client = new StatusPageIo("https://example.com/v1/", null, replay)) {
+            long start = System.nanoTime();
+            assertEquals("Page", client.listPages().get(0).getName());
+            assertThat(System.nanoTime() - start, greaterThanOrEqualTo(200_000_000L));
+        }
+        try (StatusPageIo client = new StatusPageIo("https://example.com/v1/", null, new ReplayTransport(new TrafficArchive(dir), 0))) {
+            long start = System.nanoTime();
+            assertEquals("Page", client.listPages().get(0).getName());
+            assertThat(System.nanoTime() - start, lessThan(200_000_000L));
+
+            try {
+                client.listComponents(new Page("p1", "Page"));
+                fail();
+            } catch (IOException ex) {
+                assertThat(ex.getMessage(), containsString("No response recorded for /v1/pages/p1/components"));
+            }
+        }
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    public void recordOnlyCompletedResponses() throws Exception {
+        File dir = tmp.newFolder("archive");
+        String url = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/hedged/v1/pages";
+
+        TrafficArchive archive = new TrafficArchive(dir);
+        try (RecordingTransport transport = new RecordingTransport(new HttpClientTransport(StatusPageIo.createPooledClient(1)), archive)) {
+            // Rest of the body read after the handler
+            assertEquals(Integer.valueOf('['), transport.get(url, null, rsp -> rsp.getBody().read()));
+            try {
+                transport.get(url, null, rsp -> {
+                    rsp.getBody().read();
+                    throw new IOException("Rejected");
+                });
+                fail();
+            } catch (IOException ex) {
+                assertEquals("Rejected", ex.getMessage());
+            }
+        }
+
+        List<TrafficArchive.Exchange> recorded = new TrafficArchive(dir).load();
+        assertEquals(1, recorded.size());
+        assertEquals("[{\"id\":\"p1\",\"name\":\"Page\"}]", new String(recorded.get(0).body, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void recordHedgedRequests() throws Exception {
+        File dir = tmp.newFolder("archive");
+        String url = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/hedged/v1/";
+
+        ExecutorService executor = Executors.newCachedThreadPool();
+        TrafficArchive archive = new TrafficArchive(dir);
+        HedgingTransport hedging = new HedgingTransport(
+                new RecordingTransport(new HttpClientTransport(StatusPageIo.createPooledClient(2)), archive), executor, 0.1
+        );
+        try (StatusPageIo io = new StatusPageIo(url, null, hedging)) {
+            for (int i = 0; i < 21; i++) {
+                assertEquals("Page", io.listPages().get(0).getName());
+            }
+            assertEquals(1, hedging.getHedges());
+
+            // Let the abandoned primary complete
+            slowResponse.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+            assertEquals(1, hedging.getHedgeWins());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(22, hedgedRequests.get());
+
+        // The abandoned primary is not recorded
+        List<TrafficArchive.Exchange> recorded = new TrafficArchive(dir).load();
+        assertEquals(21, recorded.size());
+        for (TrafficArchive.Exchange exchange : recorded) {
+            assertEquals("[{\"id\":\"p1\",\"name\":\"Page\"}]", new String(exchange.body, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void redact() {
+        assertEquals("https://h/v1/pages?api_key=REDACTED&page=2", TrafficArchive.redact("https://h/v1/pages?api_key=abc&page=2"));
+        assertEquals("https://h/v1/pages?page=2&token=REDACTED", TrafficArchive.redact("https://h/v1/pages?page=2&token=abc"));
+        assertEquals("https://h/v1/pages?page=2", TrafficArchive.redact("https://user:pass@h/v1/pages?page=2"));
+        assertEquals("https://h/v1/pages?page=2&token=REDACTED", TrafficArchive.redact("https://user:pass@h/v1/pages?page=2&token=abc"));
+        assertEquals("https://h/v1/pages?email=a@b.c", TrafficArchive.redact("https://h/v1/pages?email=a@b.c"));
+        assertEquals("/v1/pages?page=2", TrafficArchive.key("https://h:8080/v1/pages?page=2"));
+    }
+}
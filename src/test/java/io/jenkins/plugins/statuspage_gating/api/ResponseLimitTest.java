@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) Red Hat, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.jenkins.plugins.statuspage_gating.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class ResponseLimitTest {
+    private static final byte[] PAGES = "[{\"id\":\"p1\",\"name\":\"Page\"}]".getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer server;
+    private Transport transport;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/ok/pages", exchange -> respond(exchange, "application/json", PAGES.length, PAGES));
+        server.createContext("/html/pages", exchange -> {
+            byte[] body = "<html>Not an API</html>".getBytes(StandardCharsets.UTF_8);
+            respond(exchange, "text/html; charset=utf-8", body.length, body);
+        });
+        server.createContext("/declared/pages", exchange -> respond(exchange, "application/json", 100_000, json(100_000)));
+        // Length not declared
+        server.createContext("/chunked/pages", exchange -> respond(exchange, "application/json", 0, json(100_000)));
+        server.start();
+
+        // Single connection, so the next request blocks unless the aborted one released it
+        transport = new HttpClientTransport(StatusPageIo.createPooledClient(1));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        transport.close();
+        server.stop(0);
+    }
+
+    @Test(timeout = 30_000)
+    public void abort() throws Exception {
+        assertEquals("Page", client("ok").listPages().get(0).getName());
+
+        try {
+            client("html").listPages();
+            fail();
+        } catch (IOException ex) {
+            assertThat(ex.getMessage(), containsString("Expected JSON, got 'text/html; charset=utf-8'"));
+        }
+        assertEquals("Page", client("ok").listPages().get(0).getName());
+
+        try {
+            client("declared").listPages();
+            fail();
+        } catch (IOException ex) {
+            assertThat(ex.getMessage(), containsString("Response of 100000 bytes exceeds the limit of 1024"));
+        }
+        assertEquals("Page", client("ok").listPages().get(0).getName());
+
+        try {
+            client("chunked").listPages();
+            fail();
+        } catch (IOException ex) {
+            assertThat(ex.getMessage(), containsString("Response exceeds the limit of 1024 bytes"));
+        }
+        assertEquals("Page", client("ok").listPages().get(0).getName());
+    }
+
+    private StatusPageIo client(String path) {
+        String url = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/" + path + "/";
+        StatusPageIo client = new StatusPageIo(url, null, transport);
+        client.setMaxResponseSize(1024);
+        return client;
+    }
+
+    /**
+     * JSON array of pages of given size.
+     */
+    private static byte[] json(int size) {
+        byte[] body = new byte[size];
+        Arrays.fill(body, (byte) ' ');
+        body[0] = '[';
+        System.arraycopy(PAGES, 1, body, 1, PAGES.length - 2);
+        body[size - 1] = ']';
+        return body;
+    }
+
+    private static void respond(HttpExchange exchange, String contentType, long length, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        } catch (IOException ex) {
+            // Aborted by the client
+        }
+    }
+}